@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleDeserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Пакеты лайков и дружбы читаются поэлементно и отклоняются на первой лишней операции, а не после
+// того, как Jackson соберет весь список. Модуль попадает во все ObjectMapper от построителя Spring Boot,
+// поэтому предел действует для JSON, Smile и CBOR одинаково
+@Component
+public class BatchLimitModule extends SimpleModule {
+
+    public BatchLimitModule() {
+        super("BatchLimitModule");
+        setDeserializers(new SimpleDeserializers() {
+            @Override
+            public JsonDeserializer<?> findCollectionDeserializer(CollectionType type, DeserializationConfig config,
+                                                                  BeanDescription beanDesc,
+                                                                  TypeDeserializer elementTypeDeserializer,
+                                                                  JsonDeserializer<?> elementDeserializer) {
+                if (type.getContentType().hasRawClass(LikeOperation.class)) {
+                    return new BoundedListDeserializer(type, FilmService.MAX_BATCH_SIZE);
+                }
+                if (type.getContentType().hasRawClass(FriendshipOperation.class)) {
+                    return new BoundedListDeserializer(type, UserService.MAX_BATCH_SIZE);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static class BoundedListDeserializer extends StdDeserializer<List<Object>> {
+        private final JavaType elementType;
+        private final int maxSize;
+
+        BoundedListDeserializer(CollectionType type, int maxSize) {
+            super(type);
+            this.elementType = type.getContentType();
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Object> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (List<Object>) context.handleUnexpectedToken(getValueType(context), parser);
+            }
+            JsonDeserializer<Object> elements = context.findRootValueDeserializer(elementType);
+            List<Object> result = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (result.size() == maxSize) {
+                    throw new ValidationException("Пакет не может содержать больше " + maxSize + " операций");
+                }
+                result.add(token == JsonToken.VALUE_NULL ? null : elements.deserialize(parser, context));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.CacheStatistics;
+import ru.yandex.practicum.filmorate.service.ServiceCaches;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/caches")
+@RequiredArgsConstructor
+public class CacheController {
+    private final ServiceCaches caches;
+
+    @GetMapping
+    public ResponseEntity<List<CacheStatistics>> statistics() {
+        log.info("GET /caches - статистика кэшей");
+        return ResponseEntity.ok(caches.statistics());
+    }
+}
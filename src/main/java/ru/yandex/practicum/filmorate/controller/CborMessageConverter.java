@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+// Ответы и тела запросов в CBOR (application/cbor), настройки ObjectMapper те же, что у JSON
+@Component
+public class CborMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+    public CborMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        super(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
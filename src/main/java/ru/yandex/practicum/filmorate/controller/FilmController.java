@@ -1,13 +1,30 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.ImportSummary;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.OperationResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -16,21 +33,68 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FilmController {
     private final FilmService filmService;
+    private final ImportService importService;
+    private final ResourceVersions versions;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<Film>> findAll() {
-        log.info("GET /films - получение списка всех фильмов");
-        List<Film> films = filmService.findAll();
-        log.debug("GET /films - найдено {} фильмов", films.size());
-        return ResponseEntity.ok(films);
+    public ResponseEntity<List<?>> findAll(@RequestParam(required = false) Integer after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+                                           @RequestParam(required = false) String fields) {
+        if (releasedFrom != null || releasedTo != null) {
+            log.info("GET /films - получение фильмов, вышедших с {} по {}", releasedFrom, releasedTo);
+            List<Film> films = filmService.findReleased(releasedFrom, releasedTo, limit);
+            log.debug("GET /films - за период найдено {} фильмов", films.size());
+            return ResponseEntity.ok(Projections.films(films, fields));
+        }
+        if (after == null && limit == null) {
+            log.info("GET /films - получение списка всех фильмов");
+            List<Film> films = filmService.findAll();
+            log.debug("GET /films - найдено {} фильмов", films.size());
+            return ResponseEntity.ok(Projections.films(films, fields));
+        }
+
+        log.info("GET /films - получение страницы фильмов после ID {}, лимит {}", after, limit);
+        List<Film> films = filmService.findPage(after, limit);
+        log.debug("GET /films - на странице {} фильмов", films.size());
+        if (films.isEmpty()) {
+            return ResponseEntity.ok(films);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", films.get(films.size() - 1).getId())
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(Projections.films(films, fields));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.info("GET /films - потоковая выдача всех фильмов");
+        StreamingResponseBody body = NdjsonStreams.pages(filmService::findPage, Film::getId,
+                FilmService.MAX_PAGE_SIZE, objectMapper.writerFor(Film.class));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Film> getById(@PathVariable Integer id) {
+    public ResponseEntity<?> getById(@PathVariable Integer id,
+                                     @RequestParam(required = false) String fields,
+                                     ServletWebRequest request) {
         log.info("GET /films/{} - получение фильма по ID", id);
+        if (RepresentationTags.checkNotModified(request, versions.filmTag(id), Projections.filmFieldsKey(fields))) {
+            log.debug("GET /films/{} - фильм не изменился", id);
+            return null;
+        }
         Film film = filmService.getById(id);
         log.debug("GET /films/{} - найден фильм: '{}'", id, film.getName());
-        return ResponseEntity.ok(film);
+        return ResponseEntity.ok(Projections.film(film, fields));
     }
 
     @PostMapping
@@ -45,6 +109,14 @@ public class FilmController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdFilm);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importFilms(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("POST /films/import - потоковый импорт фильмов");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ImportSummary summary = importService.importFilms(request.getInputStream(), response.getOutputStream());
+        log.info("POST /films/import - создано {}, с ошибками {}", summary.getImported(), summary.getFailed());
+    }
+
     @PutMapping
     public ResponseEntity<Film> update(@RequestBody Film film) {
         log.info("PUT /films - попытка обновления фильма с ID: {}", film.getId());
@@ -73,13 +145,51 @@ public class FilmController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/likes/batch")
+    public ResponseEntity<List<OperationResult>> applyLikes(@RequestBody List<LikeOperation> operations) {
+        log.info("POST /films/likes/batch - пакетное изменение лайков: {} операций", operations.size());
+        List<OperationResult> results = filmService.applyLikes(operations);
+        log.debug("POST /films/likes/batch - обработано {} операций", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<?>> search(
+            @RequestParam(name = "q", required = false) String query,
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(required = false) String fields) {
+        log.info("GET /films/search - поиск фильмов по запросу \"{}\"", query);
+        List<Film> found = filmService.search(query, limit);
+        log.debug("GET /films/search - найдено {} фильмов", found.size());
+        return ResponseEntity.ok(Projections.films(found, fields));
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<FilmSuggestion>> autocomplete(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        // Запрос приходит на каждое нажатие клавиши, поэтому только DEBUG
+        log.debug("GET /films/autocomplete - подсказки для \"{}\"", prefix);
+        return ResponseEntity.ok(filmService.autocomplete(prefix, limit));
+    }
+
     @GetMapping("/popular")
-    public ResponseEntity<List<Film>> getPopularFilms(
-            @RequestParam(defaultValue = "10") Integer count) {
+    public ResponseEntity<List<?>> getPopularFilms(
+            @RequestParam(defaultValue = "10") Integer count,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer decade,
+            @RequestParam(required = false) String fields,
+            ServletWebRequest request) {
         log.info("GET /films/popular - получение {} популярных фильмов", count);
-        List<Film> popularFilms = filmService.getPopularFilms(count);
+        if (RepresentationTags.checkNotModified(request, versions.popularTag(), Projections.filmFieldsKey(fields))) {
+            log.debug("GET /films/popular - рейтинг не изменился");
+            return null;
+        }
+        List<Film> popularFilms = year == null && decade == null
+                ? filmService.getPopularFilms(count)
+                : filmService.getPopularFilms(count, year, decade);
         log.debug("GET /films/popular - найдено {} популярных фильмов", popularFilms.size());
-        return ResponseEntity.ok(popularFilms);
+        return ResponseEntity.ok(Projections.films(popularFilms, fields));
     }
 
     @DeleteMapping("/clear")
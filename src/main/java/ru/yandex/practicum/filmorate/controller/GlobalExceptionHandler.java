@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 
@@ -13,17 +16,42 @@ import java.util.Map;
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private final Counter validationErrors;
+    private final Counter notFoundErrors;
+
+    public GlobalExceptionHandler(MeterRegistry registry) {
+        validationErrors = errors(registry, "validation");
+        notFoundErrors = errors(registry, "not_found");
+    }
+
+    private static Counter errors(MeterRegistry registry, String type) {
+        return Counter.builder("filmorate.errors")
+                .description("Ответы с ошибкой клиента по типу ошибки")
+                .tag("type", type)
+                .register(registry);
+    }
 
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<Map<String, String>> handleValidationException(ValidationException ex) {
+        validationErrors.increment();
         log.warn("Validation error: {}", ex.getMessage());
         log.debug("Validation exception details: ", ex);
         Map<String, String> errorResponse = Map.of("error", ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        log.warn("Invalid request parameter '{}': {}", ex.getName(), ex.getValue());
+        Map<String, String> errorResponse = Map.of("error", "Некорректное значение параметра " + ex.getName());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, String>> handleResponseStatusException(ResponseStatusException ex) {
+        if (ex.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+            notFoundErrors.increment();
+        }
         if (ex.getStatusCode().is4xxClientError()) {
             log.warn("Client error: {} - {}", ex.getStatusCode(), ex.getReason());
         } else {
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+final class NdjsonStreams {
+
+    private NdjsonStreams() {
+    }
+
+    // Выдает сущности постранично по курсору, не собирая всю таблицу в памяти
+    static <T> StreamingResponseBody pages(BiFunction<Integer, Integer, List<T>> pageLoader,
+                                           Function<T, Integer> idGetter, int pageSize, ObjectWriter writer) {
+        return out -> {
+            Integer after = null;
+            List<T> page;
+            do {
+                page = pageLoader.apply(after, pageSize);
+                for (T entity : page) {
+                    out.write(writer.writeValueAsBytes(entity));
+                    out.write('\n');
+                }
+                if (!page.isEmpty()) {
+                    after = idGetter.apply(page.get(page.size() - 1));
+                }
+                out.flush();
+            } while (page.size() == pageSize);
+        };
+    }
+}
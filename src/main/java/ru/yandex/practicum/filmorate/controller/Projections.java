@@ -0,0 +1,213 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Разреженные наборы полей: ?fields=id,name,likesCount. Выбранные поля пишутся прямо из сущности,
+// минуя бин-сериализацию Jackson: лайки и друзья выводятся из IntSet без упаковки в Integer,
+// а если не запрошены, не обходятся вовсе. Без параметра ответ остается прежним
+public final class Projections {
+
+    private Projections() {
+    }
+
+    public static List<?> films(List<Film> films, String fields) {
+        return fields == null ? films : views(films, parse(FilmField.class, fields));
+    }
+
+    public static Object film(Film film, String fields) {
+        return fields == null ? film : new View<>(film, parse(FilmField.class, fields));
+    }
+
+    public static List<?> users(List<User> users, String fields) {
+        return fields == null ? users : views(users, parse(UserField.class, fields));
+    }
+
+    public static Object user(User user, String fields) {
+        return fields == null ? user : new View<>(user, parse(UserField.class, fields));
+    }
+
+    // Канонический ключ набора полей для ETag: не зависит от порядка и повторов в параметре
+    static String filmFieldsKey(String fields) {
+        return fields == null ? null : key(parse(FilmField.class, fields));
+    }
+
+    static String userFieldsKey(String fields) {
+        return fields == null ? null : key(parse(UserField.class, fields));
+    }
+
+    private static String key(Set<? extends Enum<?>> fields) {
+        long mask = 0;
+        for (Enum<?> field : fields) {
+            mask |= 1L << field.ordinal();
+        }
+        return Long.toString(mask, 36);
+    }
+
+    private static <T> List<View<T>> views(List<T> entities, Set<? extends Field<T>> fields) {
+        List<View<T>> views = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            views.add(new View<>(entity, fields));
+        }
+        return views;
+    }
+
+    private static <F extends Enum<F> & Field<?>> Set<F> parse(Class<F> type, String fields) {
+        Set<F> selected = EnumSet.noneOf(type);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            selected.add(find(type, trimmed));
+        }
+        if (selected.isEmpty()) {
+            throw new ValidationException("Параметр fields не содержит ни одного поля");
+        }
+        return selected;
+    }
+
+    private static <F extends Enum<F> & Field<?>> F find(Class<F> type, String name) {
+        for (F field : type.getEnumConstants()) {
+            if (field.jsonName().equals(name)) {
+                return field;
+            }
+        }
+        throw new ValidationException("Неизвестное поле в параметре fields: " + name);
+    }
+
+    private static void writeNumber(JsonGenerator gen, Integer value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    // Обход IntSet не пробрасывает IOException, поэтому ошибка записи переносится через UncheckedIOException
+    private static void writeIds(JsonGenerator gen, Consumer<IntConsumer> forEach) throws IOException {
+        gen.writeStartArray();
+        try {
+            forEach.accept(id -> {
+                try {
+                    gen.writeNumber(id);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        gen.writeEndArray();
+    }
+
+    interface Field<T> {
+        String jsonName();
+
+        void write(T entity, JsonGenerator gen, SerializerProvider provider) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter<T> {
+        void write(T entity, JsonGenerator gen, SerializerProvider provider) throws IOException;
+    }
+
+    // Даты пишутся сериализатором из настроек ObjectMapper, чтобы формат совпадал с полным ответом
+    enum FilmField implements Field<Film> {
+        ID("id", (film, gen, provider) -> writeNumber(gen, film.getId())),
+        NAME("name", (film, gen, provider) -> gen.writeString(film.getName())),
+        DESCRIPTION("description", (film, gen, provider) -> gen.writeString(film.getDescription())),
+        RELEASE_DATE("releaseDate",
+                (film, gen, provider) -> provider.defaultSerializeValue(film.getReleaseDate(), gen)),
+        DURATION("duration", (film, gen, provider) -> writeNumber(gen, film.getDuration())),
+        LIKES("likes", (film, gen, provider) -> writeIds(gen, film::forEachLike)),
+        LIKES_COUNT("likesCount", (film, gen, provider) -> gen.writeNumber(film.getLikesCount()));
+
+        private final String jsonName;
+        private final FieldWriter<Film> writer;
+
+        FilmField(String jsonName, FieldWriter<Film> writer) {
+            this.jsonName = jsonName;
+            this.writer = writer;
+        }
+
+        @Override
+        public String jsonName() {
+            return jsonName;
+        }
+
+        @Override
+        public void write(Film film, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writer.write(film, gen, provider);
+        }
+    }
+
+    enum UserField implements Field<User> {
+        ID("id", (user, gen, provider) -> writeNumber(gen, user.getId())),
+        EMAIL("email", (user, gen, provider) -> gen.writeString(user.getEmail())),
+        LOGIN("login", (user, gen, provider) -> gen.writeString(user.getLogin())),
+        NAME("name", (user, gen, provider) -> gen.writeString(user.getName())),
+        BIRTHDAY("birthday", (user, gen, provider) -> provider.defaultSerializeValue(user.getBirthday(), gen)),
+        FRIENDS("friends", (user, gen, provider) -> writeIds(gen, user::forEachFriend)),
+        FRIENDS_COUNT("friendsCount", (user, gen, provider) -> gen.writeNumber(user.getFriends().size()));
+
+        private final String jsonName;
+        private final FieldWriter<User> writer;
+
+        UserField(String jsonName, FieldWriter<User> writer) {
+            this.jsonName = jsonName;
+            this.writer = writer;
+        }
+
+        @Override
+        public String jsonName() {
+            return jsonName;
+        }
+
+        @Override
+        public void write(User user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writer.write(user, gen, provider);
+        }
+    }
+
+    @JsonSerialize(using = ViewSerializer.class)
+    record View<T>(T entity, Set<? extends Field<T>> fields) {
+    }
+
+    static final class ViewSerializer extends StdSerializer<View<?>> {
+
+        ViewSerializer() {
+            super(View.class, false);
+        }
+
+        @Override
+        public void serialize(View<?> view, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            write(view, gen, provider);
+        }
+
+        private static <T> void write(View<T> view, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            T entity = view.entity();
+            gen.writeStartObject(entity);
+            for (Field<T> field : view.fields()) {
+                gen.writeFieldName(field.jsonName());
+                field.write(entity, gen, provider);
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Одна версия данных отдается в разных представлениях: JSON, Smile и CBOR - разные байты, а fields
+// меняет набор полей. Сильный ETag обязан их различать, поэтому к версии добавляются выбранный
+// по Accept формат и набор полей, а Vary: Accept не дает промежуточным кэшам отдать Smile
+// клиенту, который просил JSON
+final class RepresentationTags {
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    // В порядке предпочтения при Accept: */*, как у конвертеров
+    private static final List<MediaType> PRODUCIBLE = List.of(MediaType.APPLICATION_JSON, SMILE, CBOR);
+
+    private RepresentationTags() {
+    }
+
+    static boolean checkNotModified(ServletWebRequest request, String versionTag, String fieldsKey) {
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return request.checkNotModified(tag(versionTag, negotiate(request.getHeader(HttpHeaders.ACCEPT)), fieldsKey));
+    }
+
+    // Версия приходит в кавычках: "instance-version"
+    static String tag(String versionTag, MediaType mediaType, String fieldsKey) {
+        StringBuilder tag = new StringBuilder(versionTag.length() + 24)
+                .append(versionTag, 0, versionTag.length() - 1)
+                .append('-').append(mediaType.getSubtype());
+        if (fieldsKey != null) {
+            tag.append('-').append(fieldsKey);
+        }
+        return tag.append('"').toString();
+    }
+
+    // Формат, который выберут конвертеры: первый поддерживаемый тип из Accept с наибольшим q
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept).stream()
+                    .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                    .toList();
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        for (MediaType type : accepted) {
+            for (MediaType producible : PRODUCIBLE) {
+                if (type.getQualityValue() > 0 && type.isCompatibleWith(producible)) {
+                    return producible;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+}
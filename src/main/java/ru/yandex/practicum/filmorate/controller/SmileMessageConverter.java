@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+// Ответы и тела запросов в Smile (Accept/Content-Type: application/x-jackson-smile) для внутренних
+// клиентов. ObjectMapper собирается из того же настроенного Spring Boot построителя, что и для JSON,
+// поэтому поля и формат дат совпадают с JSON-ответом
+@Component
+public class SmileMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+    public SmileMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        super(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
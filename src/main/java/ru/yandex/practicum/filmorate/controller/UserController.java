@@ -1,13 +1,29 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
+import ru.yandex.practicum.filmorate.model.ImportSummary;
+import ru.yandex.practicum.filmorate.model.OperationResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
 import java.util.List;
 
 @Slf4j
@@ -16,21 +32,54 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final FilmService filmService;
+    private final ImportService importService;
+    private final ResourceVersions versions;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<User>> findAll() {
-        log.info("GET /users - получение списка всех пользователей");
-        List<User> users = userService.findAll();
-        log.debug("GET /users - найдено {} пользователей", users.size());
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<?>> findAll(@RequestParam(required = false) Integer after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String fields) {
+        if (after == null && limit == null) {
+            log.info("GET /users - получение списка всех пользователей");
+            List<User> users = userService.findAll();
+            log.debug("GET /users - найдено {} пользователей", users.size());
+            return ResponseEntity.ok(Projections.users(users, fields));
+        }
+
+        log.info("GET /users - получение страницы пользователей после ID {}, лимит {}", after, limit);
+        List<User> users = userService.findPage(after, limit);
+        log.debug("GET /users - на странице {} пользователей", users.size());
+        if (users.isEmpty()) {
+            return ResponseEntity.ok(users);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", users.get(users.size() - 1).getId())
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(Projections.users(users, fields));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.info("GET /users - потоковая выдача всех пользователей");
+        StreamingResponseBody body = NdjsonStreams.pages(userService::findPage, User::getId,
+                UserService.MAX_PAGE_SIZE, objectMapper.writerFor(User.class));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> getById(@PathVariable Integer id) {
+    public ResponseEntity<?> getById(@PathVariable Integer id,
+                                     @RequestParam(required = false) String fields) {
         log.info("GET /users/{} - получение пользователя по ID", id);
         User user = userService.getById(id);
         log.debug("GET /users/{} - найден пользователь: '{}'", id, user.getLogin());
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(Projections.user(user, fields));
     }
 
     @PostMapping
@@ -45,6 +94,14 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("POST /users/import - потоковый импорт пользователей");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ImportSummary summary = importService.importUsers(request.getInputStream(), response.getOutputStream());
+        log.info("POST /users/import - создано {}, с ошибками {}", summary.getImported(), summary.getFailed());
+    }
+
     @PutMapping
     public ResponseEntity<User> update(@RequestBody User user) {
         log.info("PUT /users - попытка обновления пользователя с ID: {}", user.getId());
@@ -73,22 +130,68 @@ public class UserController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/friends/batch")
+    public ResponseEntity<List<OperationResult>> applyFriendships(@RequestBody List<FriendshipOperation> operations) {
+        log.info("POST /users/friends/batch - пакетное изменение дружбы: {} операций", operations.size());
+        List<OperationResult> results = userService.applyFriendships(operations);
+        log.debug("POST /users/friends/batch - обработано {} операций", results.size());
+        return ResponseEntity.ok(results);
+    }
+
     @GetMapping("/{id}/friends")
-    public ResponseEntity<List<User>> getFriends(@PathVariable Integer id) {
+    public ResponseEntity<List<?>> getFriends(@PathVariable Integer id,
+                                              @RequestParam(required = false) String fields,
+                                              ServletWebRequest request) {
         log.info("GET /users/{}/friends - получение списка друзей", id);
+        if (RepresentationTags.checkNotModified(request, versions.friendsTag(id), Projections.userFieldsKey(fields))) {
+            log.debug("GET /users/{}/friends - список друзей не изменился", id);
+            return null;
+        }
         List<User> friends = userService.getFriends(id);
         log.debug("GET /users/{}/friends - найдено {} друзей", id, friends.size());
-        return ResponseEntity.ok(friends);
+        return ResponseEntity.ok(Projections.users(friends, fields));
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public ResponseEntity<List<User>> getCommonFriends(
+    public ResponseEntity<List<?>> getCommonFriends(
             @PathVariable Integer id,
-            @PathVariable Integer otherId) {
+            @PathVariable Integer otherId,
+            @RequestParam(required = false) String fields) {
         log.info("GET /users/{}/friends/common/{} - получение общих друзей", id, otherId);
         List<User> commonFriends = userService.getCommonFriends(id, otherId);
         log.debug("GET /users/{}/friends/common/{} - найдено {} общих друзей", id, otherId, commonFriends.size());
-        return ResponseEntity.ok(commonFriends);
+        return ResponseEntity.ok(Projections.users(commonFriends, fields));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<?>> getRecommendations(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "10") Integer count,
+            @RequestParam(required = false) String fields) {
+        log.info("GET /users/{}/recommendations - получение {} рекомендаций друзей", id, count);
+        List<User> recommendations = userService.getRecommendations(id, count);
+        log.debug("GET /users/{}/recommendations - найдено {} рекомендаций", id, recommendations.size());
+        return ResponseEntity.ok(Projections.users(recommendations, fields));
+    }
+
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<List<?>> getLikedFilms(@PathVariable Integer id,
+                                                 @RequestParam(required = false) String fields) {
+        log.info("GET /users/{}/likes - получение понравившихся фильмов", id);
+        List<Film> likedFilms = filmService.getLikedFilms(id);
+        log.debug("GET /users/{}/likes - найдено {} фильмов", id, likedFilms.size());
+        return ResponseEntity.ok(Projections.films(likedFilms, fields));
+    }
+
+    @GetMapping("/{id}/films/recommended")
+    public ResponseEntity<List<?>> getRecommendedFilms(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "10") Integer count,
+            @RequestParam(required = false) String fields) {
+        log.info("GET /users/{}/films/recommended - получение {} рекомендованных фильмов", id, count);
+        List<Film> recommended = filmService.getRecommendedFilms(id, count);
+        log.debug("GET /users/{}/films/recommended - найдено {} фильмов", id, recommended.size());
+        return ResponseEntity.ok(Projections.films(recommended, fields));
     }
 
     @DeleteMapping("/clear")
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Асинхронная запись журнала через ограниченный кольцевой буфер. Поток запроса только кладет
+// событие в буфер, форматирование и запись в файл и консоль выполняет фоновый поток пачками.
+// Как у AsyncAppender из Logback, когда в буфере остается меньше discardingThreshold мест (по умолчанию
+// пятая часть), события INFO и ниже отбрасываются, а оставшееся место достается WARN и ERROR. Заполненный
+// целиком буфер поток запроса не ждет ни на каком уровне (как neverBlock у Logback): событие
+// отбрасывается. В отличие от AsyncAppender потери считаются - они видны в метрике
+// filmorate.logging.dropped и отдельной строкой в самом журнале
+public class AsyncLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+    private static final int BATCH_SIZE = 256;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder dropped = new LongAdder();
+    private int queueSize = 8192;
+    private int maxFlushTimeMs = 1000;
+    private int discardingThreshold = -1;
+    private BlockingQueue<ILoggingEvent> queue;
+    private Thread worker;
+    private volatile boolean running;
+    private long reportedDropped;
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setMaxFlushTimeMs(int maxFlushTimeMs) {
+        this.maxFlushTimeMs = maxFlushTimeMs;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (queueSize < 1) {
+            addError("Размер буфера журнала должен быть положительным: " + queueSize);
+            return;
+        }
+        if (discardingThreshold < 0) {
+            discardingThreshold = queueSize / 5;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        running = true;
+        worker = new Thread(this::drainLoop, "async-log-" + getName());
+        worker.setDaemon(true);
+        worker.start();
+        super.start();
+    }
+
+    // При остановке контекста журналирования дописывает накопленное, но не дольше maxFlushTimeMs
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        try {
+            worker.join(maxFlushTimeMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn("Журнал не успел записать " + queue.size() + " событий за " + maxFlushTimeMs + " мс");
+            worker.interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        boolean discardable = !event.getLevel().isGreaterOrEqual(Level.WARN);
+        if (discardable && queue.remainingCapacity() < discardingThreshold) {
+            dropped.increment();
+            return;
+        }
+        // Аргументы сообщения и MDC фиксируются сейчас: фоновый поток увидит их позже
+        event.prepareForDeferredProcessing();
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                ILoggingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (ILoggingEvent event : batch) {
+                    appenders.appendLoopOnAppenders(event);
+                }
+                batch.clear();
+                reportDropped();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                addError("Не удалось записать " + batch.size() + " событий журнала", e);
+                batch.clear();
+            }
+        }
+    }
+
+    // Пишется тем же фоновым потоком, поэтому сообщение о потерях само не может потеряться
+    private void reportDropped() {
+        long total = dropped.sum();
+        if (total == reportedDropped) {
+            return;
+        }
+        Logger logger = ((LoggerContext) getContext()).getLogger(AsyncLogAppender.class);
+        appenders.appendLoopOnAppenders(new LoggingEvent(AsyncLogAppender.class.getName(), logger, Level.WARN,
+                "Буфер журнала был заполнен, пропущено событий: {}", null, new Object[]{total - reportedDropped}));
+        reportedDropped = total;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.BodyReplacer;
+import org.zalando.logbook.HttpMessage;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.RequestFilter;
+import org.zalando.logbook.ResponseFilter;
+import org.zalando.logbook.core.BodyReplacers;
+import org.zalando.logbook.core.RequestFilters;
+import org.zalando.logbook.core.ResponseFilters;
+
+import java.util.List;
+
+// Фильтры Logbook по умолчанию плюс замена тел Smile и CBOR: Logbook считает двоичными только
+// стандартные типы вроде application/octet-stream и иначе писал бы эти байты в журнал как текст.
+// Бин заменяет собой фильтры запросов и ответов из автоконфигурации Logbook
+@Component
+public class BinaryBodyFilter implements RequestFilter, ResponseFilter {
+    private static final List<String> BINARY_TYPES = List.of("application/x-jackson-smile", "application/cbor");
+
+    private final RequestFilter requestDefaults = RequestFilters.defaultValue();
+    private final ResponseFilter responseDefaults = ResponseFilters.defaultValue();
+    private final RequestFilter binaryRequests = RequestFilters.replaceBody(replacer());
+    private final ResponseFilter binaryResponses = ResponseFilters.replaceBody(replacer());
+
+    @Override
+    public HttpRequest filter(HttpRequest request) {
+        return binaryRequests.filter(requestDefaults.filter(request));
+    }
+
+    @Override
+    public HttpResponse filter(HttpResponse response) {
+        return binaryResponses.filter(responseDefaults.filter(response));
+    }
+
+    private static <T extends HttpMessage> BodyReplacer<T> replacer() {
+        return BodyReplacers.replaceBody(BinaryBodyFilter::isBinary, "<binary>");
+    }
+
+    private static boolean isBinary(HttpMessage message) {
+        String contentType = message.getContentType();
+        return contentType != null && BINARY_TYPES.stream().anyMatch(contentType::startsWith);
+    }
+}
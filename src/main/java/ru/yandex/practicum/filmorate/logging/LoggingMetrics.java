@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+// Метрики асинхронных appender-ов корневого логгера: потерянные события и заполненность буфера
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME)
+                .iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof AsyncLogAppender appender) {
+                FunctionCounter.builder("filmorate.logging.dropped", appender, AsyncLogAppender::getDroppedCount)
+                        .description("События журнала, отброшенные из-за заполненного буфера")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+                Gauge.builder("filmorate.logging.queued", appender, AsyncLogAppender::getQueuedCount)
+                        .description("События журнала, ожидающие записи")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+                Gauge.builder("filmorate.logging.capacity", appender, AsyncLogAppender::getQueueSize)
+                        .description("Размер буфера журнала")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+            }
+        }
+    }
+}
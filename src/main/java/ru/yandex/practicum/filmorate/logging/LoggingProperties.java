@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.logging")
+public class LoggingProperties {
+    // Доля запросов, которые попадают в журнал Logbook, если путь не подошел ни под одно правило
+    private double defaultRate = 1.0;
+    private List<Sampling> sampling = new ArrayList<>();
+
+    @Data
+    public static class Sampling {
+        private String path;
+        private double rate = 1.0;
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+// Выборка запросов для журнала Logbook с долей по шаблону пути (первое подошедшее правило из
+// filmorate.logging.sampling). Решение принимается до чтения тела, поэтому пропущенный запрос
+// не буферизуется и не форматируется. Исключения logbook.predicate.exclude применяются поверх
+@Component("requestCondition")
+public class RequestLogSampler implements Predicate<HttpRequest> {
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<LoggingProperties.Sampling> rules;
+    private final double defaultRate;
+    private final MeterRegistry registry;
+    private volatile Counter skipped;
+
+    public RequestLogSampler(LoggingProperties properties, @Lazy MeterRegistry registry) {
+        this.rules = List.copyOf(properties.getSampling());
+        // Список правил заменяется источником настроек целиком, поэтому правило без пути - ошибка конфигурации
+        for (LoggingProperties.Sampling rule : rules) {
+            if (rule.getPath() == null || rule.getPath().isBlank()) {
+                throw new IllegalStateException("Не задан путь в правиле выборки журнала filmorate.logging.sampling");
+            }
+        }
+        this.defaultRate = properties.getDefaultRate();
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        double rate = rate(request.getPath());
+        if (rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate) {
+            return true;
+        }
+        skipped().increment();
+        return false;
+    }
+
+    double rate(String path) {
+        for (LoggingProperties.Sampling rule : rules) {
+            if (matcher.match(rule.getPath(), path)) {
+                return rule.getRate();
+            }
+        }
+        return defaultRate;
+    }
+
+    private Counter skipped() {
+        Counter counter = skipped;
+        if (counter == null) {
+            counter = Counter.builder("filmorate.logging.sampled.out")
+                    .description("Запросы, не попавшие в журнал Logbook из-за выборки")
+                    .register(registry);
+            skipped = counter;
+        }
+        return counter;
+    }
+}
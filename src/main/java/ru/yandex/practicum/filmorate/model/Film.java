@@ -3,8 +3,9 @@ package ru.yandex.practicum.filmorate.model;
 import lombok.Data;
 
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 @Data
 public class Film {
@@ -13,7 +14,9 @@ public class Film {
     private String description;
     private LocalDate releaseDate;
     private Integer duration;
-    private Set<Integer> likes = new HashSet<>();
+    // Лайки хранятся без упаковки в Integer и безопасны для одновременных изменений,
+    // size() читается без блокировок
+    private final IntSet likes = new IntSet();
 
     public void addLike(Integer userId) {
         likes.add(userId);
@@ -23,11 +26,32 @@ public class Film {
         likes.remove(userId);
     }
 
+    public void forEachLike(IntConsumer action) {
+        likes.forEach(action);
+    }
+
+    public int[] likeIds() {
+        return likes.toIntArray();
+    }
+
+    public void addLikes(int[] userIds) {
+        for (int userId : userIds) {
+            likes.add(userId);
+        }
+    }
+
     public Set<Integer> getLikes() {
-        return new HashSet<>(likes);
+        return Collections.unmodifiableSet(likes);
+    }
+
+    public void setLikes(Set<Integer> likes) {
+        this.likes.clear();
+        if (likes != null) {
+            this.likes.addAll(likes);
+        }
     }
 
     public int getLikesCount() {
         return likes.size();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmSuggestion {
+    private Integer id;
+    private String name;
+    private int likesCount;
+
+    public static FilmSuggestion of(Film film) {
+        return new FilmSuggestion(film.getId(), film.getName(), film.getLikesCount());
+    }
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+@Data
+public class FriendshipOperation {
+    private Integer userId;
+    private Integer friendId;
+    private OperationType type = OperationType.ADD;
+}
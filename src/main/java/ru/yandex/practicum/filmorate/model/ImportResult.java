@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResult {
+    private int line;
+    private Integer id;
+    private String error;
+
+    public static ImportResult created(int line, Integer id) {
+        return new ImportResult(line, id, null);
+    }
+
+    public static ImportResult failed(int line, String error) {
+        return new ImportResult(line, null, error);
+    }
+}
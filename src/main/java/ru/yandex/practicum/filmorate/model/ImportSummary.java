@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+@Data
+public class ImportSummary {
+    private long imported;
+    private long failed;
+}
@@ -0,0 +1,495 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+public class IntSet extends AbstractSet<Integer> {
+    // Как в Roaring bitmap: старшие 16 бит выбирают контейнер, младшие хранятся внутри него
+    // отсортированным массивом char или, если значений много, битовой картой
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = (1 << CHUNK_BITS) / Long.SIZE;
+    private static final Chunk[] EMPTY = new Chunk[0];
+    // Сколько раз запись в контейнер должна застать другую запись, чтобы он стал битовой картой
+    private static final int PROMOTE_AFTER = 8;
+    private static final int UNCHANGED = 0;
+    private static final int CHANGED = 1;
+    private static final int EMPTIED = 2;
+    private static final int RETRY = 3;
+
+    // Множество есть у каждого фильма и пользователя, и почти всегда это несколько десятков id
+    // в одном контейнере. Поэтому вместо конкурентной карты контейнеров и счетчика размера -
+    // массив контейнеров по возрастанию старших бит: пустое множество не занимает ничего сверх
+    // ссылки на общий пустой массив, а небольшое - один контейнер. Массив копируется под
+    // блокировкой множества, только когда контейнер появляется или пустеет. Отсортированный массив
+    // внутри контейнера меняется под его блокировкой, а битовая карта - без блокировок, CAS по словам.
+    // Контейнер, в который часто пишут одновременно (лайки популярного фильма), или просто плотный
+    // становится битовой картой и остается ею до конца жизни: 8 КБ на горячий контейнер в обмен
+    // на параллельные изменения. Порядок блокировок всегда "множество, затем контейнер"
+    private volatile Chunk[] chunks = EMPTY;
+
+    public IntSet() {
+    }
+
+    public IntSet(Collection<Integer> values) {
+        addAll(values);
+    }
+
+    public boolean add(int value) {
+        int high = value >> CHUNK_BITS;
+        char low = (char) (value & LOW_MASK);
+        Chunk chunk = find(chunks, high);
+        while (true) {
+            if (chunk == null) {
+                chunk = chunkFor(high);
+            }
+            int result = chunk.update(low, true);
+            if (result != RETRY) {
+                return result == CHANGED;
+            }
+            // Контейнер опустел или множество очищено: берем актуальный под блокировкой множества
+            chunk = null;
+        }
+    }
+
+    public boolean remove(int value) {
+        Chunk chunk = find(chunks, value >> CHUNK_BITS);
+        if (chunk == null) {
+            return false;
+        }
+        int result = chunk.update((char) (value & LOW_MASK), false);
+        if (result == EMPTIED) {
+            dropIfEmpty(chunk);
+        }
+        return result == CHANGED || result == EMPTIED;
+    }
+
+    public boolean contains(int value) {
+        Chunk chunk = find(chunks, value >> CHUNK_BITS);
+        return chunk != null && chunk.contains((char) (value & LOW_MASK));
+    }
+
+    public void forEach(IntConsumer action) {
+        for (Chunk chunk : chunks) {
+            for (int value : chunk.toArray()) {
+                action.accept(value);
+            }
+        }
+    }
+
+    public int[] toIntArray() {
+        Chunk[] current = chunks;
+        int[] result = new int[size(current)];
+        int length = 0;
+        for (Chunk chunk : current) {
+            int[] values = chunk.toArray();
+            if (length + values.length > result.length) {
+                result = Arrays.copyOf(result, length + values.length);
+            }
+            System.arraycopy(values, 0, result, length, values.length);
+            length += values.length;
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    public int[] intersect(IntSet other) {
+        IntSet small = size() <= other.size() ? this : other;
+        IntSet large = small == this ? other : this;
+        Chunk[] largeChunks = large.chunks;
+        int[] result = new int[small.size()];
+        int length = 0;
+        for (Chunk chunk : small.chunks) {
+            Chunk largeChunk = find(largeChunks, chunk.high);
+            if (largeChunk == null) {
+                continue;
+            }
+            int[] candidates = chunk.toArray();
+            if (length + candidates.length > result.length) {
+                result = Arrays.copyOf(result, length + candidates.length);
+            }
+            length = largeChunk.retain(candidates, result, length);
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Integer id && remove(id.intValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Integer id && contains(id.intValue());
+    }
+
+    // Сумма размеров контейнеров: их обычно один-два, а читается без блокировок
+    @Override
+    public int size() {
+        return size(chunks);
+    }
+
+    // Все контейнеры помечаются удаленными до замены массива, поэтому добавление, которое ждало
+    // блокировку контейнера или успело поставить бит в отброшенной карте, повторит попытку после очистки
+    @Override
+    public synchronized void clear() {
+        for (Chunk chunk : chunks) {
+            synchronized (chunk) {
+                chunk.removed = true;
+            }
+        }
+        chunks = EMPTY;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private final Chunk[] current = chunks;
+            private int chunkIndex;
+            private int[] values = new int[0];
+            private int position;
+            private Integer last;
+
+            @Override
+            public boolean hasNext() {
+                while (position == values.length && chunkIndex < current.length) {
+                    values = current[chunkIndex++].toArray();
+                    position = 0;
+                }
+                return position < values.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = values[position++];
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                IntSet.this.remove(last.intValue());
+                last = null;
+            }
+        };
+    }
+
+    private synchronized Chunk chunkFor(int high) {
+        Chunk[] current = chunks;
+        int index = indexOf(current, high);
+        if (index >= 0) {
+            return current[index];
+        }
+        index = -index - 1;
+        Chunk chunk = new Chunk(high);
+        Chunk[] grown = new Chunk[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, index);
+        grown[index] = chunk;
+        System.arraycopy(current, index, grown, index + 1, current.length - index);
+        chunks = grown;
+        return chunk;
+    }
+
+    // Контейнер мог снова заполниться, пока блокировка была снята, поэтому пустота проверяется повторно.
+    // Битовые карты меняются без блокировок и не удаляются: пустоту в них нельзя проверить атомарно
+    private synchronized void dropIfEmpty(Chunk chunk) {
+        synchronized (chunk) {
+            if (chunk.removed || chunk.cardinality > 0 || chunk.bitmap != null) {
+                return;
+            }
+            chunk.removed = true;
+        }
+        Chunk[] current = chunks;
+        int index = indexOf(current, chunk.high);
+        if (index < 0 || current[index] != chunk) {
+            return;
+        }
+        if (current.length == 1) {
+            chunks = EMPTY;
+            return;
+        }
+        Chunk[] shrunk = new Chunk[current.length - 1];
+        System.arraycopy(current, 0, shrunk, 0, index);
+        System.arraycopy(current, index + 1, shrunk, index, current.length - index - 1);
+        chunks = shrunk;
+    }
+
+    private static Chunk find(Chunk[] chunks, int high) {
+        int index = indexOf(chunks, high);
+        return index >= 0 ? chunks[index] : null;
+    }
+
+    private static int indexOf(Chunk[] chunks, int high) {
+        int low = 0;
+        int highIndex = chunks.length - 1;
+        while (low <= highIndex) {
+            int middle = (low + highIndex) >>> 1;
+            int key = chunks[middle].high;
+            if (key < high) {
+                low = middle + 1;
+            } else if (key > high) {
+                highIndex = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int size(Chunk[] chunks) {
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            size += chunk.cardinality;
+        }
+        return size;
+    }
+
+    private static final class Chunk {
+        private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final VarHandle CARDINALITY;
+        private static final VarHandle WRITING;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                CARDINALITY = lookup.findVarHandle(Chunk.class, "cardinality", int.class);
+                WRITING = lookup.findVarHandle(Chunk.class, "writing", boolean.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final int high;
+        // Массив читается и меняется только под блокировкой контейнера и только пока нет карты
+        private char[] values = new char[4];
+        // Появляется один раз под блокировкой, дальше слова меняются CAS без нее
+        private volatile long[] bitmap;
+        // Под блокировкой у массива и атомарно у карты, а size() читает его без блокировок
+        private volatile int cardinality;
+        private volatile boolean removed;
+        // Признак идущей записи в массив: запись, заставшая другую, считается конкурентной
+        private volatile boolean writing;
+        private int contention;
+
+        Chunk(int high) {
+            this.high = high;
+        }
+
+        int update(char low, boolean add) {
+            long[] words = bitmap;
+            if (words == null) {
+                boolean contended = !WRITING.compareAndSet(this, false, true);
+                try {
+                    synchronized (this) {
+                        if (removed) {
+                            return RETRY;
+                        }
+                        if (bitmap == null && (contended && ++contention >= PROMOTE_AFTER
+                                || add && cardinality == ARRAY_LIMIT)) {
+                            toBitmap();
+                        }
+                        words = bitmap;
+                        if (words == null) {
+                            if (add) {
+                                return addToArray(low) ? CHANGED : UNCHANGED;
+                            }
+                            if (!removeFromArray(low)) {
+                                return UNCHANGED;
+                            }
+                            return cardinality == 0 ? EMPTIED : CHANGED;
+                        }
+                    }
+                } finally {
+                    if (!contended) {
+                        writing = false;
+                    }
+                }
+            }
+            boolean changed = add ? setBit(words, low) : clearBit(words, low);
+            // Очистка множества помечает контейнеры до замены массива: если метка уже стоит,
+            // изменение могло попасть в отброшенный контейнер и повторяется в актуальном
+            if (removed) {
+                return RETRY;
+            }
+            return changed ? CHANGED : UNCHANGED;
+        }
+
+        boolean contains(char low) {
+            long[] words = bitmap;
+            if (words == null) {
+                synchronized (this) {
+                    words = bitmap;
+                    if (words == null) {
+                        return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+                    }
+                }
+            }
+            return testBit(words, low);
+        }
+
+        int[] toArray() {
+            int base = high << CHUNK_BITS;
+            long[] words = bitmap;
+            if (words == null) {
+                synchronized (this) {
+                    words = bitmap;
+                    if (words == null) {
+                        int[] result = new int[cardinality];
+                        for (int i = 0; i < cardinality; i++) {
+                            result[i] = base | values[i];
+                        }
+                        return result;
+                    }
+                }
+            }
+            // Карта может меняться во время обхода, поэтому размер результата не доверяет cardinality
+            int[] result = new int[cardinality + 16];
+            int length = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = (long) WORDS.getVolatile(words, word);
+                while (bits != 0) {
+                    if (length == result.length) {
+                        result = Arrays.copyOf(result, length * 2);
+                    }
+                    result[length++] = base | (word << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+            return length == result.length ? result : Arrays.copyOf(result, length);
+        }
+
+        // Оставляет из отсортированных кандидатов те, что есть в контейнере. Если кандидатов
+        // намного меньше, чем значений в контейнере, ищет их галопом вместо линейного слияния
+        int retain(int[] candidates, int[] out, int length) {
+            long[] words = bitmap;
+            if (words == null) {
+                synchronized (this) {
+                    words = bitmap;
+                    if (words == null) {
+                        return retainFromArray(candidates, out, length);
+                    }
+                }
+            }
+            for (int candidate : candidates) {
+                if (testBit(words, (char) (candidate & LOW_MASK))) {
+                    out[length++] = candidate;
+                }
+            }
+            return length;
+        }
+
+        private int retainFromArray(int[] candidates, int[] out, int length) {
+            boolean gallop = candidates.length * 16 < cardinality;
+            int position = 0;
+            for (int candidate : candidates) {
+                char low = (char) (candidate & LOW_MASK);
+                if (gallop) {
+                    position = gallop(low, position);
+                } else {
+                    while (position < cardinality && values[position] < low) {
+                        position++;
+                    }
+                }
+                if (position == cardinality) {
+                    break;
+                }
+                if (values[position] == low) {
+                    out[length++] = candidate;
+                    position++;
+                }
+            }
+            return length;
+        }
+
+        private boolean addToArray(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return true;
+        }
+
+        private boolean removeFromArray(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return true;
+        }
+
+        private boolean setBit(long[] words, char low) {
+            int index = low >>> 6;
+            long bit = 1L << low;
+            long word;
+            do {
+                word = (long) WORDS.getVolatile(words, index);
+                if ((word & bit) != 0) {
+                    return false;
+                }
+            } while (!WORDS.compareAndSet(words, index, word, word | bit));
+            CARDINALITY.getAndAdd(this, 1);
+            return true;
+        }
+
+        private boolean clearBit(long[] words, char low) {
+            int index = low >>> 6;
+            long bit = 1L << low;
+            long word;
+            do {
+                word = (long) WORDS.getVolatile(words, index);
+                if ((word & bit) == 0) {
+                    return false;
+                }
+            } while (!WORDS.compareAndSet(words, index, word, word & ~bit));
+            CARDINALITY.getAndAdd(this, -1);
+            return true;
+        }
+
+        private static boolean testBit(long[] words, char low) {
+            return ((long) WORDS.getVolatile(words, low >>> 6) & (1L << low)) != 0;
+        }
+
+        private int gallop(char low, int from) {
+            int step = 1;
+            int to = from;
+            while (to < cardinality && values[to] < low) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(values, from, Math.min(to + 1, cardinality), low);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        // Карта заполняется до публикации, поэтому потоки без блокировки видят ее уже полной
+        private void toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            bitmap = words;
+            values = null;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+@Data
+public class LikeOperation {
+    private Integer filmId;
+    private Integer userId;
+    private OperationType type = OperationType.ADD;
+}
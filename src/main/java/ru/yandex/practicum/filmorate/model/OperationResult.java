@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OperationResult {
+    private int index;
+    private int status;
+    private String error;
+
+    public static OperationResult ok(int index) {
+        return new OperationResult(index, 200, null);
+    }
+
+    public static OperationResult failed(int index, int status, String error) {
+        return new OperationResult(index, status, error);
+    }
+}
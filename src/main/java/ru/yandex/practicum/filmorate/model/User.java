@@ -3,8 +3,9 @@ package ru.yandex.practicum.filmorate.model;
 import lombok.Data;
 
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 @Data
 public class User {
@@ -13,7 +14,7 @@ public class User {
     private String login;
     private String name;
     private LocalDate birthday;
-    private Set<Integer> friends = new HashSet<>();
+    private final IntSet friends = new IntSet();
 
     public void addFriend(Integer friendId) {
         friends.add(friendId);
@@ -23,7 +24,36 @@ public class User {
         friends.remove(friendId);
     }
 
+    public boolean isFriend(int userId) {
+        return friends.contains(userId);
+    }
+
+    public void forEachFriend(IntConsumer action) {
+        friends.forEach(action);
+    }
+
+    public int[] friendIds() {
+        return friends.toIntArray();
+    }
+
+    public void addFriends(int[] friendIds) {
+        for (int friendId : friendIds) {
+            friends.add(friendId);
+        }
+    }
+
     public Set<Integer> getFriends() {
-        return new HashSet<>(friends);
+        return Collections.unmodifiableSet(friends);
+    }
+
+    public int[] commonFriendIds(User other) {
+        return friends.intersect(other.friends);
+    }
+
+    public void setFriends(Set<Integer> friends) {
+        this.friends.clear();
+        if (friends != null) {
+            this.friends.addAll(friends);
+        }
     }
-}
\ No newline at end of file
+}
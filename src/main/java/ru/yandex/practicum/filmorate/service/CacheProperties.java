@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.cache")
+public class CacheProperties {
+    private long filmsSize = 10_000;
+    private long friendsSize = 10_000;
+    private long commonFriendsSize = 10_000;
+    private long recommendationsSize = 10_000;
+    // Свои лайки пользователя сбрасывают его рекомендации сразу, лайки остальных учитываются
+    // не позже чем через это время
+    private Duration recommendationsTtl = Duration.ofSeconds(30);
+}
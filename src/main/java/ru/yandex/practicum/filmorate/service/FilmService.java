@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -7,32 +8,65 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.OperationResult;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.time.LocalDate;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed("filmorate.service")
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final ResourceVersions versions;
+    private final ServiceCaches caches;
 
     private static final LocalDate FIRST_FILM_DATE = LocalDate.of(1895, 12, 28);
+    // Совпадает с шириной колонки films.name, чтобы оба хранилища принимали одни и те же фильмы
+    static final int MAX_NAME_LENGTH = 255;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 50;
+    // Пакет целиком держится в памяти и применяется одним вызовом хранилища
+    public static final int MAX_BATCH_SIZE = 1000;
 
     public List<Film> findAll() {
         log.debug("Получение списка всех фильмов");
         return filmStorage.findAll();
     }
 
+    public List<Film> findPage(Integer after, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        log.debug("Получение страницы фильмов после ID {}, размер {}", after, pageSize);
+        return filmStorage.findPage(after, pageSize);
+    }
+
+    public List<Film> findReleased(LocalDate from, LocalDate to, Integer limit) {
+        if (from != null && to != null && from.isAfter(to)) {
+            log.warn("Начало периода {} позже его конца {}", from, to);
+            throw new ValidationException("Начало периода не может быть позже его конца");
+        }
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        log.debug("Получение фильмов, вышедших с {} по {}, не больше {}", from, to, pageSize);
+        return filmStorage.findReleased(from, to, pageSize);
+    }
+
     public Film create(Film film) {
         log.debug("Создание фильма: {}", film.getName());
         validateFilm(film);
-        return filmStorage.create(film);
+        Film created = filmStorage.create(film);
+        versions.filmChanged(created.getId());
+        return created;
     }
 
     public Film update(Film film) {
@@ -43,17 +77,19 @@ public class FilmService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Фильм с id=" + film.getId() + " не найден");
         }
-        return filmStorage.update(film);
+        Film updated = filmStorage.update(film);
+        versions.filmChanged(updated.getId());
+        return updated;
     }
 
     public Film getById(Integer id) {
         log.debug("Поиск фильма по ID: {}", id);
-        return filmStorage.findById(id)
-                .orElseThrow(() -> {
-                    log.warn("Фильм с ID={} не найден", id);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND,
-                            "Фильм с id=" + id + " не найден");
-                });
+        Film film = caches.films().get(id, () -> filmStorage.findById(id).orElse(null), versions.filmVersion(id));
+        if (film == null) {
+            log.warn("Фильм с ID={} не найден", id);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Фильм с id=" + id + " не найден");
+        }
+        return film;
     }
 
     public void validateUserExists(Integer userId) {
@@ -67,44 +103,176 @@ public class FilmService {
 
     public void addLike(Integer filmId, Integer userId) {
         log.debug("Добавление лайка: фильм {}, пользователь {}", filmId, userId);
-        Film film = getById(filmId);
+        getById(filmId);
         validateUserExists(userId);
 
-        film.addLike(userId);
-        filmStorage.update(film);
+        filmStorage.addLike(filmId, userId);
+        versions.filmChanged(filmId);
+        versions.likesChanged(userId);
         log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
     }
 
     public void removeLike(Integer filmId, Integer userId) {
         log.debug("Удаление лайка: фильм {}, пользователь {}", filmId, userId);
-        Film film = getById(filmId);
+        getById(filmId);
         validateUserExists(userId);
 
-        film.removeLike(userId);
-        filmStorage.update(film);
+        filmStorage.removeLike(filmId, userId);
+        versions.filmChanged(filmId);
+        versions.likesChanged(userId);
         log.info("Пользователь {} удалил лайк с фильма {}", userId, filmId);
     }
 
+    public List<OperationResult> applyLikes(List<LikeOperation> operations) {
+        log.debug("Пакетное изменение лайков: {} операций", operations.size());
+        if (operations.size() > MAX_BATCH_SIZE) {
+            log.warn("Слишком большой пакет лайков: {} операций", operations.size());
+            throw new ValidationException("Пакет не может содержать больше " + MAX_BATCH_SIZE + " операций");
+        }
+        List<LikeOperation> validOperations = operations.stream()
+                .filter(Objects::nonNull)
+                .toList();
+        Set<Integer> missingFilms = validOperations.stream()
+                .map(LikeOperation::getFilmId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(id -> !filmStorage.existsById(id))
+                .collect(Collectors.toSet());
+        Set<Integer> missingUsers = validOperations.stream()
+                .map(LikeOperation::getUserId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(id -> !userStorage.existsById(id))
+                .collect(Collectors.toSet());
+
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        List<LikeOperation> accepted = new ArrayList<>(validOperations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            OperationResult result = checkLike(i, operations.get(i), missingFilms, missingUsers);
+            results.add(result);
+            if (result.getError() == null) {
+                accepted.add(operations.get(i));
+            }
+        }
+        filmStorage.applyLikes(accepted);
+        accepted.forEach(operation -> {
+            versions.filmChanged(operation.getFilmId());
+            versions.likesChanged(operation.getUserId());
+        });
+
+        log.info("Пакетное изменение лайков выполнено: {} операций, {} с ошибками", results.size(),
+                results.stream().filter(result -> result.getError() != null).count());
+        return results;
+    }
+
     public List<Film> getPopularFilms(Integer count) {
-        int limit = (count == null || count <= 0) ? 10 : count;
+        int limit = (count == null || count <= 0) ? 10 : Math.min(count, MAX_PAGE_SIZE);
         log.debug("Получение {} популярных фильмов", limit);
 
-        List<Film> popularFilms = filmStorage.findAll().stream()
-                .sorted(Comparator.comparingInt(Film::getLikesCount).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        List<Film> popularFilms = filmStorage.findPopular(limit);
 
         log.debug("Найдено {} популярных фильмов", popularFilms.size());
         return popularFilms;
     }
 
-    private void validateFilm(Film film) {
+    public List<Film> getPopularFilms(Integer count, Integer year, Integer decade) {
+        if (year == null && decade == null) {
+            return getPopularFilms(count);
+        }
+        if (year != null && decade != null) {
+            throw new ValidationException("Нужно указать либо год, либо десятилетие");
+        }
+        if (decade != null && decade % 10 != 0) {
+            throw new ValidationException("Десятилетие задается его первым годом, например 1990");
+        }
+        int limit = (count == null || count <= 0) ? 10 : Math.min(count, MAX_PAGE_SIZE);
+        log.debug("Получение {} популярных фильмов за {} {}", limit, year != null ? "год" : "десятилетие",
+                year != null ? year : decade);
+
+        List<Film> popularFilms = year != null
+                ? filmStorage.findPopularByYear(year, limit)
+                : filmStorage.findPopularByDecade(decade, limit);
+
+        log.debug("Найдено {} популярных фильмов", popularFilms.size());
+        return popularFilms;
+    }
+
+    public List<Film> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            log.warn("Пустой поисковый запрос");
+            throw new ValidationException("Поисковый запрос не может быть пустым");
+        }
+        int pageSize = (limit == null || limit <= 0) ? 10 : Math.min(limit, MAX_PAGE_SIZE);
+        log.debug("Поиск фильмов по запросу \"{}\", не больше {}", query, pageSize);
+
+        List<Film> found = filmStorage.search(query, pageSize);
+
+        log.debug("По запросу \"{}\" найдено {} фильмов", query, found.size());
+        return found;
+    }
+
+    public List<FilmSuggestion> autocomplete(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new ValidationException("Префикс названия не может быть пустым");
+        }
+        int size = (limit == null || limit <= 0) ? 10 : Math.min(limit, MAX_SUGGESTIONS);
+        return filmStorage.autocomplete(prefix, size).stream()
+                .map(FilmSuggestion::of)
+                .toList();
+    }
+
+    public List<Film> getLikedFilms(Integer userId) {
+        log.debug("Получение фильмов, понравившихся пользователю {}", userId);
+        validateUserExists(userId);
+
+        List<Film> likedFilms = filmStorage.findLikedBy(userId);
+
+        log.debug("Пользователю {} понравилось {} фильмов", userId, likedFilms.size());
+        return likedFilms;
+    }
+
+    public List<Film> getRecommendedFilms(Integer userId, Integer count) {
+        int limit = (count == null || count <= 0) ? 10 : Math.min(count, MAX_PAGE_SIZE);
+        log.debug("Получение {} рекомендованных фильмов для пользователя {}", limit, userId);
+        validateUserExists(userId);
+
+        List<Film> recommended = caches.recommendations().get(((long) userId << 32) | limit,
+                () -> List.copyOf(filmStorage.findRecommended(userId, limit)),
+                versions.likesVersion(userId));
+
+        log.debug("Найдено {} рекомендованных фильмов для пользователя {}", recommended.size(), userId);
+        return recommended;
+    }
+
+    private OperationResult checkLike(int index, LikeOperation operation,
+                                      Set<Integer> missingFilms, Set<Integer> missingUsers) {
+        if (operation == null || operation.getFilmId() == null || operation.getUserId() == null
+                || operation.getType() == null) {
+            return OperationResult.failed(index, HttpStatus.BAD_REQUEST.value(),
+                    "Должны быть указаны filmId, userId и type");
+        }
+        if (missingFilms.contains(operation.getFilmId())) {
+            return OperationResult.failed(index, HttpStatus.NOT_FOUND.value(),
+                    "Фильм с id=" + operation.getFilmId() + " не найден");
+        }
+        if (missingUsers.contains(operation.getUserId())) {
+            return OperationResult.failed(index, HttpStatus.NOT_FOUND.value(),
+                    "Пользователь с id=" + operation.getUserId() + " не найден");
+        }
+        return OperationResult.ok(index);
+    }
+
+    void validateFilm(Film film) {
         log.debug("Валидация фильма: {}", film.getName());
 
         if (film.getName() == null || film.getName().isBlank()) {
             log.warn("Название фильма пустое");
             throw new ValidationException("Название фильма не может быть пустым");
         }
+        if (film.getName().length() > MAX_NAME_LENGTH) {
+            log.warn("Название фильма слишком длинное: {} символов", film.getName().length());
+            throw new ValidationException("Название не может превышать " + MAX_NAME_LENGTH + " символов");
+        }
         if (film.getDescription() != null && film.getDescription().length() > 200) {
             log.warn("Описание фильма слишком длинное: {} символов", film.getDescription().length());
             throw new ValidationException("Описание не может превышать 200 символов");
@@ -128,5 +296,8 @@ public class FilmService {
     public void clear() {
         log.info("Очистка данных фильмов");
         filmStorage.clear();
+        versions.clear();
+        caches.clear();
     }
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,216 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.ImportSummary;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+// NDJSON делится на строки до разбора, а не читается одним JsonParser/MappingIterator по всему потоку.
+// Потоковый парсер не знает о переводах строк: после синтаксической ошибки он не может продолжить
+// со следующей строки, а незакрытый объект вроде {"name": поглощает следующую строку как значение,
+// и отчет по строкам указал бы не ту строку. Кроме того, порция разбирается и проверяется параллельно,
+// а один парсер по потоку последователен. Каждая строка разбирается тем же ObjectReader (внутри -
+// потоковый парсер Jackson), а память ограничена порцией: CHUNK_SIZE строк по MAX_LINE_LENGTH символов
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportService {
+    // Размер порции ограничивает память импорта независимо от размера входного потока
+    private static final int CHUNK_SIZE = 1000;
+    // Запись фильма или пользователя занимает сотни символов; более длинная строка считается ошибочной
+    // и дочитывается без сохранения, чтобы поток без переводов строк не занял всю память
+    static final int MAX_LINE_LENGTH = 16_384;
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ResourceVersions versions;
+    private final ObjectMapper objectMapper;
+
+    public ImportSummary importFilms(InputStream in, OutputStream out) throws IOException {
+        log.debug("Потоковый импорт фильмов");
+        UnaryOperator<List<Film>> creator = films -> {
+            List<Film> created = filmStorage.createAll(films);
+            versions.filmsAdded();
+            return created;
+        };
+        return importEntities(in, out, Film.class, filmService::validateFilm, creator, Film::getId);
+    }
+
+    public ImportSummary importUsers(InputStream in, OutputStream out) throws IOException {
+        log.debug("Потоковый импорт пользователей");
+        Consumer<User> validator = user -> {
+            userService.validateUser(user);
+            userService.applyDefaultName(user);
+        };
+        return importEntities(in, out, User.class, validator, userStorage::createAll, User::getId);
+    }
+
+    private <T> ImportSummary importEntities(InputStream in, OutputStream out, Class<T> type,
+                                             Consumer<T> validator, UnaryOperator<List<T>> creator,
+                                             Function<T, Integer> idGetter) throws IOException {
+        ImportSummary summary = new ImportSummary();
+        ObjectReader reader = objectMapper.readerFor(type);
+        ObjectWriter writer = objectMapper.writerFor(ImportResult.class);
+        LineReader lines = new LineReader(new InputStreamReader(in, StandardCharsets.UTF_8), MAX_LINE_LENGTH);
+        OutputStream report = new BufferedOutputStream(out);
+
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        int firstLine = 1;
+        int lineNumber = 0;
+        while (lines.next()) {
+            lineNumber++;
+            chunk.add(lines.line());
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, firstLine, reader, validator, creator, idGetter, writer, report, summary);
+                chunk.clear();
+                firstLine = lineNumber + 1;
+            }
+        }
+        importChunk(chunk, firstLine, reader, validator, creator, idGetter, writer, report, summary);
+        report.flush();
+
+        log.info("Импорт завершен: создано {}, с ошибками {}", summary.getImported(), summary.getFailed());
+        return summary;
+    }
+
+    private <T> void importChunk(List<String> chunk, int firstLine, ObjectReader reader, Consumer<T> validator,
+                                 UnaryOperator<List<T>> creator, Function<T, Integer> idGetter,
+                                 ObjectWriter writer, OutputStream report, ImportSummary summary) throws IOException {
+        List<T> entities = new ArrayList<>(chunk.size());
+        String[] errors = new String[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            entities.add(null);
+        }
+
+        IntStream.range(0, chunk.size()).parallel().forEach(i -> {
+            String text = chunk.get(i);
+            if (text == null) {
+                errors[i] = "Строка длиннее " + MAX_LINE_LENGTH + " символов";
+                return;
+            }
+            if (text.isBlank()) {
+                return;
+            }
+            try {
+                T entity = reader.readValue(text);
+                // Строка "null" - корректный JSON, но не запись
+                if (entity == null) {
+                    errors[i] = "Ожидался JSON-объект, получен null";
+                    return;
+                }
+                validator.accept(entity);
+                entities.set(i, entity);
+            } catch (JsonProcessingException e) {
+                errors[i] = "Некорректный JSON: " + e.getOriginalMessage();
+            } catch (ValidationException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        List<T> valid = entities.stream().filter(Objects::nonNull).toList();
+        if (!valid.isEmpty()) {
+            creator.apply(valid);
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportResult result;
+            if (entities.get(i) != null) {
+                result = ImportResult.created(firstLine + i, idGetter.apply(entities.get(i)));
+                summary.setImported(summary.getImported() + 1);
+            } else if (errors[i] != null) {
+                result = ImportResult.failed(firstLine + i, errors[i]);
+                summary.setFailed(summary.getFailed() + 1);
+            } else {
+                continue;
+            }
+            report.write(writer.writeValueAsBytes(result));
+            report.write('\n');
+        }
+        report.flush();
+    }
+
+    // Построчное чтение с ограничением длины: в отличие от BufferedReader.readLine() не накапливает
+    // строку сверх предела. Для слишком длинной строки line() возвращает null
+    private static final class LineReader {
+        private final Reader in;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean oversized;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        boolean next() throws IOException {
+            line.setLength(0);
+            oversized = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(in.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return read;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    return true;
+                }
+            }
+        }
+
+        String line() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                length--;
+            }
+            return oversized || length > maxLength ? null : line.substring(0, length);
+        }
+
+        private void append(int start, int end) {
+            if (oversized) {
+                return;
+            }
+            // Запас в один символ под '\r' перед переводом строки
+            if (line.length() + end - start > maxLength + 1) {
+                oversized = true;
+                line.setLength(0);
+                return;
+            }
+            line.append(buffer, start, end - start);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Версии данных для условных GET. Контроллер строит ETag из версии и сравнивает его с If-None-Match
+// до обращения к сервису. Сервисы меняют версию уже после записи в хранилище, поэтому ответ
+// никогда не получает версию новее своих данных - в худшем случае клиент лишний раз перезапросит их
+@Component
+public class ResourceVersions {
+    // После перезапуска счетчики начинаются заново, метка запуска не дает совпасть старым ETag
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Integer, Long> films = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> friends = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> likes = new ConcurrentHashMap<>();
+    private final AtomicLong popular = new AtomicLong();
+    // Версия всех записей, которые не менялись с последней очистки
+    private volatile long clearedAt;
+
+    public String filmTag(Integer filmId) {
+        return tag(filmVersion(filmId));
+    }
+
+    public String popularTag() {
+        return tag(popular.get());
+    }
+
+    public String friendsTag(Integer userId) {
+        return tag(friendsVersion(userId));
+    }
+
+    long filmVersion(Integer filmId) {
+        return films.getOrDefault(filmId, clearedAt);
+    }
+
+    // Меняется и при изменении профиля или дружбы любого из друзей
+    long friendsVersion(Integer userId) {
+        return friends.getOrDefault(userId, clearedAt);
+    }
+
+    // Лайки, поставленные пользователем: от них зависят его рекомендации фильмов
+    long likesVersion(Integer userId) {
+        return likes.getOrDefault(userId, clearedAt);
+    }
+
+    // Фильм входит и в рейтинги популярных, поэтому меняются обе версии
+    public void filmChanged(Integer filmId) {
+        films.put(filmId, sequence.incrementAndGet());
+        popular.set(sequence.incrementAndGet());
+    }
+
+    public void filmsAdded() {
+        popular.set(sequence.incrementAndGet());
+    }
+
+    public void friendsChanged(Integer userId) {
+        friends.put(userId, sequence.incrementAndGet());
+    }
+
+    public void likesChanged(Integer userId) {
+        likes.put(userId, sequence.incrementAndGet());
+    }
+
+    public void clear() {
+        clearedAt = sequence.incrementAndGet();
+        films.clear();
+        friends.clear();
+        likes.clear();
+        popular.set(sequence.incrementAndGet());
+    }
+
+    private String tag(long version) {
+        return "\"" + instance + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.CacheStatistics;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+// Кэши результатов FilmService и UserService. Вытеснение - W-TinyLFU из Caffeine, устаревание
+// определяется версиями из ResourceVersions. Статистика доступна в GET /caches и в метриках filmorate.cache.*
+@Component
+public class ServiceCaches implements MeterBinder {
+    private final VersionedCache<Integer, Film> films;
+    private final VersionedCache<Integer, List<User>> friends;
+    private final VersionedCache<Long, List<User>> commonFriends;
+    private final VersionedCache<Long, List<Film>> recommendations;
+
+    public ServiceCaches(CacheProperties properties) {
+        films = new VersionedCache<>("films", properties.getFilmsSize());
+        friends = new VersionedCache<>("friends", properties.getFriendsSize());
+        commonFriends = new VersionedCache<>("commonFriends", properties.getCommonFriendsSize());
+        recommendations = new VersionedCache<>("recommendations", properties.getRecommendationsSize(),
+                properties.getRecommendationsTtl());
+    }
+
+    public List<CacheStatistics> statistics() {
+        return Stream.of(films, friends, commonFriends, recommendations)
+                .map(VersionedCache::statistics)
+                .toList();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (VersionedCache<?, ?> cache : List.of(films, friends, commonFriends, recommendations)) {
+            String name = cache.statistics().getName();
+            FunctionCounter.builder("filmorate.cache.hits", cache, c -> c.statistics().getHits())
+                    .tag("cache", name)
+                    .register(registry);
+            FunctionCounter.builder("filmorate.cache.misses", cache, c -> c.statistics().getMisses())
+                    .tag("cache", name)
+                    .register(registry);
+            FunctionCounter.builder("filmorate.cache.evictions", cache, c -> c.statistics().getEvictions())
+                    .tag("cache", name)
+                    .register(registry);
+            Gauge.builder("filmorate.cache.size", cache, c -> c.statistics().getSize())
+                    .tag("cache", name)
+                    .register(registry);
+        }
+    }
+
+    VersionedCache<Integer, Film> films() {
+        return films;
+    }
+
+    VersionedCache<Integer, List<User>> friends() {
+        return friends;
+    }
+
+    VersionedCache<Long, List<User>> commonFriends() {
+        return commonFriends;
+    }
+
+    VersionedCache<Long, List<Film>> recommendations() {
+        return recommendations;
+    }
+
+    void clear() {
+        films.invalidateAll();
+        friends.invalidateAll();
+        commonFriends.invalidateAll();
+        recommendations.invalidateAll();
+    }
+}
@@ -1,52 +1,78 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
+import ru.yandex.practicum.filmorate.model.OperationResult;
+import ru.yandex.practicum.filmorate.model.OperationType;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed("filmorate.service")
 public class UserService {
     private final UserStorage userStorage;
+    private final ResourceVersions versions;
+    private final ServiceCaches caches;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    // Совпадает с шириной колонок email, login и name таблицы users
+    static final int MAX_FIELD_LENGTH = 255;
+    public static final int MAX_PAGE_SIZE = 1000;
+    // Пакет целиком держится в памяти и применяется одним вызовом хранилища
+    public static final int MAX_BATCH_SIZE = 1000;
 
     public List<User> findAll() {
         log.debug("Получение списка всех пользователей");
         return userStorage.findAll();
     }
 
+    public List<User> findPage(Integer after, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        log.debug("Получение страницы пользователей после ID {}, размер {}", after, pageSize);
+        return userStorage.findPage(after, pageSize);
+    }
+
     public User create(User user) {
         log.debug("Создание пользователя: {}", user.getLogin());
         validateUser(user);
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
-            log.debug("Имя пользователя не указано, используется логин: {}", user.getLogin());
-        }
+        applyDefaultName(user);
         return userStorage.create(user);
     }
 
     public User update(User user) {
         log.debug("Обновление пользователя с ID: {}", user.getId());
         validateUser(user);
-        if (!userStorage.existsById(user.getId())) {
+        User previous = userStorage.findById(user.getId()).orElseThrow(() -> {
             log.warn("Попытка обновления несуществующего пользователя с ID: {}", user.getId());
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+            return new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Пользователь с id=" + user.getId() + " не найден");
+        });
+        // Пользователь показывается в списках друзей у всех своих друзей
+        int[] listedBy = previous.friendIds();
+        applyDefaultName(user);
+        User updated = userStorage.update(user);
+        for (int friendId : listedBy) {
+            versions.friendsChanged(friendId);
         }
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
-            log.debug("Имя пользователя не указано, используется логин: {}", user.getLogin());
-        }
-        return userStorage.update(user);
+        updated.forEachFriend(versions::friendsChanged);
+        versions.friendsChanged(updated.getId());
+        return updated;
     }
 
     public User getById(Integer id) {
@@ -61,63 +87,136 @@ public class UserService {
 
     public void addFriend(Integer userId, Integer friendId) {
         log.debug("Добавление в друзья: пользователь {} добавляет пользователя {}", userId, friendId);
-        User user = getById(userId);
-        User friend = getById(friendId);
+        getById(userId);
+        getById(friendId);
 
         if (userId.equals(friendId)) {
             log.warn("Попытка добавить себя в друзья: пользователь {}", userId);
             throw new ValidationException("Нельзя добавить себя в друзья");
         }
 
-        user.addFriend(friendId);
-        friend.addFriend(userId);
-
-        userStorage.update(user);
-        userStorage.update(friend);
+        userStorage.addFriend(userId, friendId);
+        friendshipsChanged(Set.of(userId, friendId));
 
         log.info("Пользователи {} и {} теперь друзья", userId, friendId);
     }
 
     public void removeFriend(Integer userId, Integer friendId) {
         log.debug("Удаление из друзей: пользователь {} удаляет пользователя {}", userId, friendId);
-        User user = getById(userId);
-        User friend = getById(friendId);
-
-        user.removeFriend(friendId);
-        friend.removeFriend(userId);
+        getById(userId);
+        getById(friendId);
 
-        userStorage.update(user);
-        userStorage.update(friend);
+        userStorage.removeFriend(userId, friendId);
+        friendshipsChanged(Set.of(userId, friendId));
 
         log.info("Пользователи {} и {} больше не друзья", userId, friendId);
     }
 
+    public List<OperationResult> applyFriendships(List<FriendshipOperation> operations) {
+        log.debug("Пакетное изменение дружбы: {} операций", operations.size());
+        if (operations.size() > MAX_BATCH_SIZE) {
+            log.warn("Слишком большой пакет изменений дружбы: {} операций", operations.size());
+            throw new ValidationException("Пакет не может содержать больше " + MAX_BATCH_SIZE + " операций");
+        }
+        Set<Integer> missingUsers = operations.stream()
+                .filter(Objects::nonNull)
+                .flatMap(operation -> Stream.of(operation.getUserId(), operation.getFriendId()))
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(id -> !userStorage.existsById(id))
+                .collect(Collectors.toSet());
+
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        List<FriendshipOperation> accepted = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            OperationResult result = checkFriendship(i, operations.get(i), missingUsers);
+            results.add(result);
+            if (result.getError() == null) {
+                accepted.add(operations.get(i));
+            }
+        }
+        userStorage.applyFriendships(accepted);
+        friendshipsChanged(accepted.stream()
+                .flatMap(operation -> Stream.of(operation.getUserId(), operation.getFriendId()))
+                .collect(Collectors.toSet()));
+
+        log.info("Пакетное изменение дружбы выполнено: {} операций, {} с ошибками", results.size(),
+                results.stream().filter(result -> result.getError() != null).count());
+        return results;
+    }
+
+    // Список друзей отдает профили друзей вместе с их друзьями, поэтому дружба B и C меняет
+    // списки не только у самих B и C, но и у всех, кто дружит с одним из них
+    private void friendshipsChanged(Set<Integer> userIds) {
+        for (Integer userId : userIds) {
+            versions.friendsChanged(userId);
+            userStorage.findById(userId).ifPresent(user -> user.forEachFriend(versions::friendsChanged));
+        }
+    }
+
     public List<User> getFriends(Integer userId) {
         log.debug("Получение списка друзей пользователя: {}", userId);
-        User user = getById(userId);
-        List<User> friends = user.getFriends().stream()
-                .map(this::getById)
-                .collect(Collectors.toList());
+        List<User> friends = caches.friends().get(userId,
+                () -> List.copyOf(userStorage.findByIds(getById(userId).friendIds())),
+                versions.friendsVersion(userId));
         log.debug("Найдено {} друзей у пользователя {}", friends.size(), userId);
         return friends;
     }
 
     public List<User> getCommonFriends(Integer userId, Integer otherUserId) {
         log.debug("Поиск общих друзей между пользователями {} и {}", userId, otherUserId);
-        User user = getById(userId);
-        User otherUser = getById(otherUserId);
-
-        List<User> commonFriends = user.getFriends().stream()
-                .filter(otherUser.getFriends()::contains)
-                .map(this::getById)
-                .collect(Collectors.toList());
+        // Общие друзья симметричны, поэтому пара хранится в кэше в одном порядке
+        int first = Math.min(userId, otherUserId);
+        int second = Math.max(userId, otherUserId);
+        List<User> commonFriends = caches.commonFriends().get(((long) first << 32) | second,
+                () -> List.copyOf(userStorage.findByIds(getById(first).commonFriendIds(getById(second)))),
+                versions.friendsVersion(first), versions.friendsVersion(second));
 
         log.debug("Найдено {} общих друзей между пользователями {} и {}",
                 commonFriends.size(), userId, otherUserId);
         return commonFriends;
     }
 
-    private void validateUser(User user) {
+    private OperationResult checkFriendship(int index, FriendshipOperation operation, Set<Integer> missingUsers) {
+        if (operation == null || operation.getUserId() == null || operation.getFriendId() == null
+                || operation.getType() == null) {
+            return OperationResult.failed(index, HttpStatus.BAD_REQUEST.value(),
+                    "Должны быть указаны userId, friendId и type");
+        }
+        Integer userId = operation.getUserId();
+        Integer friendId = operation.getFriendId();
+        for (Integer id : List.of(userId, friendId)) {
+            if (missingUsers.contains(id)) {
+                return OperationResult.failed(index, HttpStatus.NOT_FOUND.value(),
+                        "Пользователь с id=" + id + " не найден");
+            }
+        }
+
+        if (operation.getType() == OperationType.ADD && userId.equals(friendId)) {
+            return OperationResult.failed(index, HttpStatus.BAD_REQUEST.value(), "Нельзя добавить себя в друзья");
+        }
+        return OperationResult.ok(index);
+    }
+
+    public List<User> getRecommendations(Integer userId, Integer count) {
+        int limit = (count == null || count <= 0) ? 10 : Math.min(count, MAX_PAGE_SIZE);
+        log.debug("Поиск {} рекомендаций друзей для пользователя {}", limit, userId);
+        getById(userId);
+
+        List<User> recommendations = userStorage.findFriendSuggestions(userId, limit);
+
+        log.debug("Найдено {} рекомендаций друзей для пользователя {}", recommendations.size(), userId);
+        return recommendations;
+    }
+
+    void applyDefaultName(User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+            log.debug("Имя пользователя не указано, используется логин: {}", user.getLogin());
+        }
+    }
+
+    void validateUser(User user) {
         log.debug("Валидация пользователя: {}", user.getLogin());
 
         if (user.getEmail() == null || user.getEmail().isBlank() || !user.getEmail().contains("@")) {
@@ -128,6 +227,11 @@ public class UserService {
             log.warn("Невалидный логин: {}", user.getLogin());
             throw new ValidationException("Логин не может быть пустым и содержать пробелы");
         }
+        if (user.getEmail().length() > MAX_FIELD_LENGTH || user.getLogin().length() > MAX_FIELD_LENGTH
+                || (user.getName() != null && user.getName().length() > MAX_FIELD_LENGTH)) {
+            log.warn("Email, логин или имя пользователя длиннее {} символов", MAX_FIELD_LENGTH);
+            throw new ValidationException("Email, логин и имя не могут превышать " + MAX_FIELD_LENGTH + " символов");
+        }
         if (user.getBirthday() == null) {
             log.warn("Дата рождения не указана для пользователя: {}", user.getLogin());
             throw new ValidationException("Дата рождения должна быть указана");
@@ -143,5 +247,7 @@ public class UserService {
     public void clear() {
         log.info("Очистка данных пользователей");
         userStorage.clear();
+        versions.clear();
+        caches.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ru.yandex.practicum.filmorate.model.CacheStatistics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Ограниченный по размеру кэш результатов сервиса. Каждое значение хранится вместе с версиями
+// данных, из которых оно построено (см. ResourceVersions): запись с устаревшей версией не отдается,
+// а пересчитывается. Версии меняются после записи в хранилище, поэтому значение, посчитанное
+// во время изменения, получает старую версию и не переживет следующего чтения
+class VersionedCache<K, V> {
+    private final String name;
+    private final Cache<K, Entry<V>> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Нулевой размер выключает кэш
+    VersionedCache(String name, long maximumSize) {
+        this(name, maximumSize, null);
+    }
+
+    // Для значений, зависящих и от данных без версий: такие записи живут не дольше expireAfterWrite
+    VersionedCache(String name, long maximumSize, Duration expireAfterWrite) {
+        this.name = name;
+        if (maximumSize <= 0) {
+            this.cache = null;
+            return;
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize).recordStats();
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        this.cache = builder.build();
+    }
+
+    V get(K key, Supplier<V> loader, long... versions) {
+        if (cache == null) {
+            return loader.get();
+        }
+        Entry<V> entry = cache.getIfPresent(key);
+        if (entry != null && Arrays.equals(entry.versions(), versions)) {
+            hits.increment();
+            return entry.value();
+        }
+        misses.increment();
+        V value = loader.get();
+        // Отсутствие не кэшируется: импорт создает записи, не меняя их версий
+        if (value != null) {
+            cache.put(key, new Entry<>(versions, value));
+        }
+        return value;
+    }
+
+    void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    CacheStatistics statistics() {
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName(name);
+        statistics.setHits(hits.sum());
+        statistics.setMisses(misses.sum());
+        long requests = statistics.getHits() + statistics.getMisses();
+        statistics.setHitRate(requests == 0 ? 0 : (double) statistics.getHits() / requests);
+        if (cache != null) {
+            statistics.setSize(cache.estimatedSize());
+            statistics.setEvictions(cache.stats().evictionCount());
+        }
+        return statistics;
+    }
+
+    private record Entry<V>(long[] versions, V value) {
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Число сущностей в хранилище и счетчики (лайков или друзей) у случайной выборки из них.
+// Пока сущностей не больше размера выборки, в нее попадают все
+public record CountSample(int size, int[] counts) {
+
+    // id выдаются подряд и сущности по одной не удаляются, поэтому случайные id из диапазона
+    // дают равномерную выборку без просмотра всего хранилища
+    static int[] randomIds(int minId, int maxId, int limit) {
+        return ThreadLocalRandom.current().ints(limit, minId, maxId + 1).toArray();
+    }
+}
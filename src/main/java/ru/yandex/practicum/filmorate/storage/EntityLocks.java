@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Полосатые блокировки по id сущности. Изменение в памяти и запись в журнал выполняются под одной
+// блокировкой, поэтому записи об одной сущности попадают в журнал в том же порядке, в каком
+// применялись, и восстановление дает то же состояние. Разные сущности по-прежнему меняются параллельно,
+// а без журнала хранилища блокировки не берут вовсе
+final class EntityLocks {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    EntityLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    void lock(int id) {
+        stripes[stripe(id)].lock();
+    }
+
+    void unlock(int id) {
+        stripes[stripe(id)].unlock();
+    }
+
+    // Две полосы берутся в порядке номеров, чтобы встречные операции не взаимоблокировались
+    void lock(int first, int second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        stripes[Math.min(a, b)].lock();
+        if (a != b) {
+            stripes[Math.max(a, b)].lock();
+        }
+    }
+
+    void unlock(int first, int second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        if (a != b) {
+            stripes[Math.max(a, b)].unlock();
+        }
+        stripes[Math.min(a, b)].unlock();
+    }
+
+    void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private static int stripe(int id) {
+        return Math.floorMod(id, STRIPES);
+    }
+}
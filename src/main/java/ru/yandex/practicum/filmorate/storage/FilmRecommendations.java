@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IntSet;
+
+import java.util.function.IntFunction;
+
+// Рекомендации по совместной встречаемости лайков: вес фильма - сумма по пользователям,
+// которым он понравился, числа фильмов, понравившихся и им, и нашему пользователю.
+// Это то же, что сумма совместных лайков фильма с каждым из фильмов пользователя
+class FilmRecommendations {
+    // Соседей с наибольшим пересечением достаточно, остальные почти не влияют на первые места
+    private static final int MAX_NEIGHBOURS = 500;
+
+    private final IntFunction<Film> films;
+    private final LikeIndex likeIndex;
+
+    FilmRecommendations(IntFunction<Film> films, LikeIndex likeIndex) {
+        this.films = films;
+        this.likeIndex = likeIndex;
+    }
+
+    int[] top(int userId, int count) {
+        IntSet liked = likeIndex.filmsOf(userId);
+        if (liked == null || liked.isEmpty() || count <= 0) {
+            return new int[0];
+        }
+
+        IntCounter overlap = new IntCounter();
+        liked.forEach((int filmId) -> {
+            Film film = films.apply(filmId);
+            if (film != null) {
+                film.forEachLike(overlap::increment);
+            }
+        });
+        overlap.reset(userId);
+        TopK neighbours = new TopK(MAX_NEIGHBOURS);
+        overlap.forEach((neighbourId, common) -> {
+            if (common > 0) {
+                neighbours.offer(neighbourId, common);
+            }
+        });
+
+        IntCounter scores = new IntCounter();
+        for (int neighbourId : neighbours.idsByRank()) {
+            IntSet theirs = likeIndex.filmsOf(neighbourId);
+            if (theirs != null) {
+                int weight = overlap.get(neighbourId);
+                theirs.forEach((int filmId) -> scores.add(filmId, weight));
+            }
+        }
+        liked.forEach((int filmId) -> scores.reset(filmId));
+
+        TopK top = new TopK(count);
+        scores.forEach((filmId, score) -> {
+            if (score > 0) {
+                top.offer(filmId, score);
+            }
+        });
+        return top.idsByRank();
+    }
+}
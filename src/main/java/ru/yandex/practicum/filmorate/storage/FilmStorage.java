@@ -1,20 +1,51 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface FilmStorage {
     List<Film> findAll();
 
+    List<Film> findPage(Integer after, int limit);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     Optional<Film> findById(Integer id);
 
     boolean existsById(Integer id);
 
+    void addLike(Integer filmId, Integer userId);
+
+    void removeLike(Integer filmId, Integer userId);
+
+    void applyLikes(List<LikeOperation> operations);
+
+    List<Film> findPopular(int count);
+
+    List<Film> findPopularByYear(int year, int count);
+
+    List<Film> findPopularByDecade(int decade, int count);
+
+    List<Film> findReleased(LocalDate from, LocalDate to, int limit);
+
+    List<Film> findRecommended(Integer userId, int count);
+
+    List<Film> findLikedBy(Integer userId);
+
+    // Число лайков у случайных фильмов без загрузки самих фильмов, для метрик
+    CountSample sampleLikeCounts(int limit);
+
+    List<Film> search(String query, int limit);
+
+    List<Film> autocomplete(String prefix, int limit);
+
     void clear();
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+// "Возможно, вы знакомы": друзья друзей, упорядоченные по числу общих друзей, затем по id.
+// Обход ограничен двумя шагами, большие списки друзей делятся между потоками fork/join.
+// Оба шага ограничены по ширине, поэтому обход просматривает не больше
+// MAX_FRIENDS * MAX_FRIEND_LIST связей, сколько бы друзей ни было у пользователя и его друзей
+class FriendSuggestions {
+    private static final int MIN_LEAF_SIZE = 512;
+    // Равномерной выборки из друзей достаточно, чтобы сохранить порядок кандидатов с заметным числом общих друзей
+    private static final int MAX_FRIENDS = 5_000;
+    // Друг с огромным списком почти ничего не говорит о знакомствах пользователя, его список не обходится
+    static final int MAX_FRIEND_LIST = 1_000;
+
+    private final IntFunction<User> users;
+
+    FriendSuggestions(IntFunction<User> users) {
+        this.users = users;
+    }
+
+    int[] top(User user, int count) {
+        int[] friendIds = user.friendIds();
+        if (friendIds.length == 0 || count <= 0) {
+            return new int[0];
+        }
+        int[] walked = sample(friendIds);
+        // Частичные счетчики приходится сливать, поэтому список делится не мельче, чем на число потоков пула
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int leafSize = Math.max(MIN_LEAF_SIZE, (walked.length + parallelism - 1) / parallelism);
+        IntCounter mutualFriends = walked.length > leafSize
+                ? ForkJoinPool.commonPool().invoke(new CountTask(walked, 0, walked.length, leafSize))
+                : count(walked, 0, walked.length);
+
+        // Уже друзей и самого пользователя проще вычеркнуть из счетчика, чем проверять каждого кандидата
+        mutualFriends.reset(user.getId());
+        for (int friendId : friendIds) {
+            mutualFriends.reset(friendId);
+        }
+        TopK top = new TopK(count);
+        mutualFriends.forEach((candidateId, mutual) -> {
+            if (mutual > 0) {
+                top.offer(candidateId, mutual);
+            }
+        });
+        return top.idsByRank();
+    }
+
+    // Каждый (length / MAX_FRIENDS)-й друг по порядку id
+    private static int[] sample(int[] friendIds) {
+        if (friendIds.length <= MAX_FRIENDS) {
+            return friendIds;
+        }
+        int[] sampled = new int[MAX_FRIENDS];
+        for (int i = 0; i < MAX_FRIENDS; i++) {
+            sampled[i] = friendIds[(int) ((long) i * friendIds.length / MAX_FRIENDS)];
+        }
+        return sampled;
+    }
+
+    private IntCounter count(int[] friendIds, int from, int to) {
+        IntCounter counter = new IntCounter();
+        for (int i = from; i < to; i++) {
+            User friend = users.apply(friendIds[i]);
+            if (friend != null && friend.getFriends().size() <= MAX_FRIEND_LIST) {
+                friend.forEachFriend(counter::increment);
+            }
+        }
+        return counter;
+    }
+
+    private class CountTask extends RecursiveTask<IntCounter> {
+        private final int[] friendIds;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        CountTask(int[] friendIds, int from, int to, int leafSize) {
+            this.friendIds = friendIds;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected IntCounter compute() {
+            if (to - from <= leafSize) {
+                return count(friendIds, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(friendIds, from, middle, leafSize);
+            left.fork();
+            IntCounter right = new CountTask(friendIds, middle, to, leafSize).compute();
+            IntCounter joined = left.join();
+            if (joined.size() < right.size()) {
+                right.addAll(joined);
+                return right;
+            }
+            joined.addAll(right);
+            return joined;
+        }
+    }
+}
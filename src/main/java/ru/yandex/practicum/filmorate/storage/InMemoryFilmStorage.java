@@ -1,17 +1,41 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IntSet;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.storage.persistence.Mutation;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationType;
 
+import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
+@Profile("!jdbc")
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Integer, Film> films = new ConcurrentHashMap<>();
-    private int nextId = 1;
+    private final NavigableMap<Integer, Film> films = new ConcurrentSkipListMap<>();
+    private final PopularityIndex popularity = new PopularityIndex(films::get);
+    private final LikeIndex likeIndex = new LikeIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final TitleIndex titleIndex = new TitleIndex(films::get);
+    private final ReleaseIndex releaseIndex = new ReleaseIndex(films::get);
+    private final FilmRecommendations recommendations = new FilmRecommendations(films::get, likeIndex);
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final EntityLocks locks = new EntityLocks();
+    private volatile MutationLog mutationLog = MutationLog.NONE;
+
+    public void setMutationLog(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     @Override
     public List<Film> findAll() {
@@ -19,20 +43,45 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public List<Film> findPage(Integer after, int limit) {
+        Collection<Film> tail = after == null ? films.values() : films.tailMap(after, false).values();
+        List<Film> page = new ArrayList<>(limit);
+        Iterator<Film> iterator = tail.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
     @Override
     public Film create(Film film) {
-        film.setId(nextId++);
-        films.put(film.getId(), film);
+        film.setId(nextId.getAndIncrement());
+        mutationLog.awaitDurable(put(film));
         log.info("Фильм успешно создан с ID: {}", film.getId());
         return film;
     }
 
+    @Override
+    public List<Film> createAll(List<Film> newFilms) {
+        int firstId = nextId.getAndAdd(newFilms.size());
+        long sequence = 0;
+        for (int i = 0; i < newFilms.size(); i++) {
+            Film film = newFilms.get(i);
+            film.setId(firstId + i);
+            sequence = put(film);
+        }
+        mutationLog.awaitDurable(sequence);
+        log.info("Создано {} фильмов с ID {}-{}", newFilms.size(), firstId, firstId + newFilms.size() - 1);
+        return newFilms;
+    }
+
     @Override
     public Film update(Film film) {
         if (!films.containsKey(film.getId())) {
-            throw new RuntimeException("Фильм с id=" + film.getId() + " не найден");
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Фильм с id=" + film.getId() + " не найден");
         }
-        films.put(film.getId(), film);
+        mutationLog.awaitDurable(put(film));
         log.info("Фильм с ID {} успешно обновлен", film.getId());
         return film;
     }
@@ -47,10 +96,237 @@ public class InMemoryFilmStorage implements FilmStorage {
         return films.containsKey(id);
     }
 
+    @Override
+    public void addLike(Integer filmId, Integer userId) {
+        mutationLog.awaitDurable(changeLike(filmId, userId, true));
+    }
+
+    @Override
+    public void removeLike(Integer filmId, Integer userId) {
+        mutationLog.awaitDurable(changeLike(filmId, userId, false));
+    }
+
+    // Пачка ждет только сброса своей последней записи: остальные лежат в журнале перед ней
+    @Override
+    public void applyLikes(List<LikeOperation> operations) {
+        long sequence = 0;
+        for (LikeOperation operation : operations) {
+            sequence = changeLike(operation.getFilmId(), operation.getUserId(),
+                    operation.getType() == OperationType.ADD);
+        }
+        mutationLog.awaitDurable(sequence);
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        return resolve(popularity.top(count));
+    }
+
+    @Override
+    public List<Film> findPopularByYear(int year, int count) {
+        return resolve(releaseIndex.topOfYear(year, count));
+    }
+
+    @Override
+    public List<Film> findPopularByDecade(int decade, int count) {
+        return resolve(releaseIndex.topOfDecade(decade, count));
+    }
+
+    @Override
+    public List<Film> findReleased(LocalDate from, LocalDate to, int limit) {
+        return resolve(releaseIndex.released(from, to, limit));
+    }
+
+    @Override
+    public List<Film> findRecommended(Integer userId, int count) {
+        return resolve(recommendations.top(userId, count));
+    }
+
+    @Override
+    public List<Film> search(String query, int limit) {
+        return resolve(searchIndex.search(query, limit));
+    }
+
+    @Override
+    public List<Film> autocomplete(String prefix, int limit) {
+        return resolve(titleIndex.complete(prefix, limit));
+    }
+
+    @Override
+    public List<Film> findLikedBy(Integer userId) {
+        IntSet liked = likeIndex.filmsOf(userId);
+        if (liked == null) {
+            return new ArrayList<>();
+        }
+        List<Film> likedFilms = new ArrayList<>(liked.size());
+        liked.forEach((int filmId) -> {
+            Film film = films.get(filmId);
+            if (film != null) {
+                likedFilms.add(film);
+            }
+        });
+        return likedFilms;
+    }
+
+    @Override
+    public CountSample sampleLikeCounts(int limit) {
+        int size = films.size();
+        if (size <= limit) {
+            return new CountSample(size, films.values().stream().mapToInt(Film::getLikesCount).toArray());
+        }
+        int[] counts = Arrays.stream(CountSample.randomIds(films.firstKey(), films.lastKey(), limit))
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .mapToInt(Film::getLikesCount)
+                .toArray();
+        return new CountSample(size, counts);
+    }
+
     @Override
     public void clear() {
         log.info("Очистка хранилища фильмов");
+        long sequence;
+        locks.lockAll();
+        try {
+            sequence = mutationLog.append(Mutation.clear(MutationType.FILMS_CLEAR));
+            clearAll();
+        } finally {
+            locks.unlockAll();
+        }
+        mutationLog.awaitDurable(sequence);
+    }
+
+    // Восстановление выполняется до приема запросов, поэтому идет без блокировок и без записи в журнал
+    public void restore(Film film) {
+        index(film);
+        popularity.refresh(film.getId());
+        nextId.accumulateAndGet(film.getId() + 1, Math::max);
+    }
+
+    public void replay(Mutation mutation) {
+        switch (mutation.getType()) {
+            case FILM_PUT -> restore(mutation.getFilm());
+            case LIKE_ADD, LIKE_REMOVE -> {
+                Film film = films.get(mutation.getId());
+                if (film != null) {
+                    applyLike(film, mutation.getOtherId(), mutation.getType() == MutationType.LIKE_ADD);
+                    refreshRatings(film.getId());
+                }
+            }
+            case FILMS_CLEAR -> clearAll();
+            default -> {
+            }
+        }
+    }
+
+    // Блокировка фильма нужна только журналу: под ней изменение и запись о нем попадают в журнал
+    // в одном порядке. Без журнала изменения одного фильма идут параллельно. Запись в журнал идет
+    // первой: если журнал отказал, изменение не попадает и в память, и читатели не увидят того,
+    // что потеряется при перезапуске
+    private long put(Film film) {
+        MutationLog journal = mutationLog;
+        long sequence = 0;
+        if (journal == MutationLog.NONE) {
+            index(film);
+        } else {
+            locks.lock(film.getId());
+            try {
+                sequence = journal.append(Mutation.putFilm(film));
+                index(film);
+            } finally {
+                locks.unlock(film.getId());
+            }
+        }
+        popularity.refresh(film.getId());
+        return sequence;
+    }
+
+    private long changeLike(Integer filmId, Integer userId, boolean add) {
+        MutationLog journal = mutationLog;
+        long sequence = 0;
+        if (journal == MutationLog.NONE) {
+            applyLike(getExisting(filmId), userId, add);
+        } else {
+            locks.lock(filmId);
+            try {
+                Film film = getExisting(filmId);
+                sequence = journal.append(Mutation.like(filmId, userId, add));
+                applyLike(film, userId, add);
+            } finally {
+                locks.unlock(filmId);
+            }
+        }
+        refreshRatings(filmId);
+        if (add) {
+            log.info("Лайк пользователя {} добавлен фильму {}", userId, filmId);
+        } else {
+            log.info("Лайк пользователя {} удален с фильма {}", userId, filmId);
+        }
+        return sequence;
+    }
+
+    private void index(Film film) {
+        likeIndex.replace(films.put(film.getId(), film), film);
+        searchIndex.index(film);
+        titleIndex.put(film);
+        releaseIndex.put(film);
+    }
+
+    private void applyLike(Film film, Integer userId, boolean add) {
+        if (add) {
+            film.addLike(userId);
+            likeIndex.add(userId, film.getId());
+        } else {
+            film.removeLike(userId);
+            likeIndex.remove(userId, film.getId());
+        }
+    }
+
+    // Рейтинги читают число лайков сами и безопасны для параллельных обновлений, поэтому
+    // пересчитываются уже после снятия блокировки фильма
+    private void refreshRatings(Integer filmId) {
+        popularity.refresh(filmId);
+        titleIndex.refresh(filmId);
+        releaseIndex.refresh(filmId);
+    }
+
+    private void clearAll() {
         films.clear();
-        nextId = 1;
+        popularity.clear();
+        likeIndex.clear();
+        searchIndex.clear();
+        titleIndex.clear();
+        releaseIndex.clear();
+        nextId.set(1);
+    }
+
+    private List<Film> resolve(List<Integer> ids) {
+        List<Film> found = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    private List<Film> resolve(int[] ids) {
+        List<Film> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    private Film getExisting(Integer filmId) {
+        Film film = films.get(filmId);
+        if (film == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Фильм с id=" + filmId + " не найден");
+        }
+        return film;
     }
 }
\ No newline at end of file
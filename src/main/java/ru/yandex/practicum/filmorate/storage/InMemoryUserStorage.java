@@ -1,17 +1,34 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
+import ru.yandex.practicum.filmorate.model.OperationType;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.persistence.Mutation;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationType;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
+@Profile("!jdbc")
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Integer, User> users = new ConcurrentHashMap<>();
-    private int nextId = 1;
+    private final NavigableMap<Integer, User> users = new ConcurrentSkipListMap<>();
+    private final FriendSuggestions friendSuggestions = new FriendSuggestions(users::get);
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final EntityLocks locks = new EntityLocks();
+    private volatile MutationLog mutationLog = MutationLog.NONE;
+
+    public void setMutationLog(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     @Override
     public List<User> findAll() {
@@ -19,20 +36,45 @@ public class InMemoryUserStorage implements UserStorage {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> findPage(Integer after, int limit) {
+        Collection<User> tail = after == null ? users.values() : users.tailMap(after, false).values();
+        List<User> page = new ArrayList<>(limit);
+        Iterator<User> iterator = tail.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
     @Override
     public User create(User user) {
-        user.setId(nextId++);
-        users.put(user.getId(), user);
+        user.setId(nextId.getAndIncrement());
+        mutationLog.awaitDurable(put(user));
         log.info("Пользователь успешно создан с ID: {}", user.getId());
         return user;
     }
 
+    @Override
+    public List<User> createAll(List<User> newUsers) {
+        int firstId = nextId.getAndAdd(newUsers.size());
+        long sequence = 0;
+        for (int i = 0; i < newUsers.size(); i++) {
+            User user = newUsers.get(i);
+            user.setId(firstId + i);
+            sequence = put(user);
+        }
+        mutationLog.awaitDurable(sequence);
+        log.info("Создано {} пользователей с ID {}-{}", newUsers.size(), firstId, firstId + newUsers.size() - 1);
+        return newUsers;
+    }
+
     @Override
     public User update(User user) {
         if (!users.containsKey(user.getId())) {
-            throw new RuntimeException("Пользователь с id=" + user.getId() + " не найден");
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь с id=" + user.getId() + " не найден");
         }
-        users.put(user.getId(), user);
+        mutationLog.awaitDurable(put(user));
         log.info("Пользователь с ID {} успешно обновлен", user.getId());
         return user;
     }
@@ -42,15 +84,161 @@ public class InMemoryUserStorage implements UserStorage {
         return Optional.ofNullable(users.get(id));
     }
 
+    @Override
+    public List<User> findByIds(int[] ids) {
+        List<User> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+
     @Override
     public boolean existsById(Integer id) {
         return users.containsKey(id);
     }
 
+    @Override
+    public void addFriend(Integer userId, Integer friendId) {
+        mutationLog.awaitDurable(changeFriendship(userId, friendId, true));
+    }
+
+    @Override
+    public void removeFriend(Integer userId, Integer friendId) {
+        mutationLog.awaitDurable(changeFriendship(userId, friendId, false));
+    }
+
+    @Override
+    public void applyFriendships(List<FriendshipOperation> operations) {
+        long sequence = 0;
+        for (FriendshipOperation operation : operations) {
+            sequence = changeFriendship(operation.getUserId(), operation.getFriendId(),
+                    operation.getType() == OperationType.ADD);
+        }
+        mutationLog.awaitDurable(sequence);
+    }
+
+    @Override
+    public List<User> findFriendSuggestions(Integer userId, int count) {
+        return findByIds(friendSuggestions.top(getExisting(userId), count));
+    }
+
+    @Override
+    public CountSample sampleFriendCounts(int limit) {
+        int size = users.size();
+        if (size <= limit) {
+            return new CountSample(size, users.values().stream().mapToInt(user -> user.getFriends().size()).toArray());
+        }
+        int[] counts = Arrays.stream(CountSample.randomIds(users.firstKey(), users.lastKey(), limit))
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .mapToInt(user -> user.getFriends().size())
+                .toArray();
+        return new CountSample(size, counts);
+    }
+
     @Override
     public void clear() {
         log.info("Очистка хранилища пользователей");
+        long sequence;
+        locks.lockAll();
+        try {
+            sequence = mutationLog.append(Mutation.clear(MutationType.USERS_CLEAR));
+            clearAll();
+        } finally {
+            locks.unlockAll();
+        }
+        mutationLog.awaitDurable(sequence);
+    }
+
+    // Восстановление выполняется до приема запросов, поэтому идет без блокировок и без записи в журнал
+    public void restore(User user) {
+        users.put(user.getId(), user);
+        nextId.accumulateAndGet(user.getId() + 1, Math::max);
+    }
+
+    public void replay(Mutation mutation) {
+        switch (mutation.getType()) {
+            case USER_PUT -> restore(mutation.getUser());
+            case FRIEND_ADD, FRIEND_REMOVE -> {
+                User user = users.get(mutation.getId());
+                User friend = users.get(mutation.getOtherId());
+                if (user != null && friend != null) {
+                    applyFriendship(user, friend, mutation.getType() == MutationType.FRIEND_ADD);
+                }
+            }
+            case USERS_CLEAR -> clearAll();
+            default -> {
+            }
+        }
+    }
+
+    // Блокировка пользователей нужна только журналу: под ней изменение и запись о нем попадают
+    // в журнал в одном порядке. Без журнала изменения идут параллельно. Запись в журнал идет первой:
+    // если журнал отказал, изменение не попадает и в память
+    private long put(User user) {
+        MutationLog journal = mutationLog;
+        if (journal == MutationLog.NONE) {
+            users.put(user.getId(), user);
+            return 0;
+        }
+        locks.lock(user.getId());
+        try {
+            long sequence = journal.append(Mutation.putUser(user));
+            users.put(user.getId(), user);
+            return sequence;
+        } finally {
+            locks.unlock(user.getId());
+        }
+    }
+
+    private long changeFriendship(Integer userId, Integer friendId, boolean add) {
+        MutationLog journal = mutationLog;
+        long sequence = 0;
+        if (journal == MutationLog.NONE) {
+            applyFriendship(getExisting(userId), getExisting(friendId), add);
+        } else {
+            locks.lock(userId, friendId);
+            try {
+                User user = getExisting(userId);
+                User friend = getExisting(friendId);
+                sequence = journal.append(Mutation.friendship(userId, friendId, add));
+                applyFriendship(user, friend, add);
+            } finally {
+                locks.unlock(userId, friendId);
+            }
+        }
+        if (add) {
+            log.info("Пользователи {} и {} добавлены друг другу в друзья", userId, friendId);
+        } else {
+            log.info("Пользователи {} и {} удалены друг у друга из друзей", userId, friendId);
+        }
+        return sequence;
+    }
+
+    private void applyFriendship(User user, User friend, boolean add) {
+        if (add) {
+            user.addFriend(friend.getId());
+            friend.addFriend(user.getId());
+        } else {
+            user.removeFriend(friend.getId());
+            friend.removeFriend(user.getId());
+        }
+    }
+
+    private void clearAll() {
         users.clear();
-        nextId = 1;
+        nextId.set(1);
+    }
+
+    private User getExisting(Integer userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь с id=" + userId + " не найден");
+        }
+        return user;
     }
 }
\ No newline at end of file
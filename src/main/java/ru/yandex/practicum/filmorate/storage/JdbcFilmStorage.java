@@ -0,0 +1,423 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.OperationType;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+@RequiredArgsConstructor
+public class JdbcFilmStorage implements FilmStorage {
+    private static final String INSERT_FILM =
+            "INSERT INTO films (name, description, release_date, duration) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_FILM =
+            "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ? WHERE id = ?";
+    // Вставка возвращает 0 для уже существующего лайка, поэтому повторный лайк не меняет likes_count.
+    // Лайки несуществующих пользователей, присланные вместе с фильмом, пропускаются так же
+    private static final String INSERT_LIKE = """
+            INSERT INTO likes (film_id, user_id)
+            SELECT ?, id FROM users
+            WHERE id = ? AND NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)""";
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+    private static final String UPDATE_LIKES_COUNT = "UPDATE films SET likes_count = likes_count + ? WHERE id = ?";
+    // Топ читается по индексу films_likes_count_idx без агрегации likes
+    private static final String SELECT_POPULAR = "SELECT * FROM films ORDER BY likes_count DESC, id LIMIT ?";
+    // Период задается полуинтервалом дат, чтобы условие шло по индексу films_release_date_idx
+    private static final String SELECT_POPULAR_RELEASED = """
+            SELECT * FROM films
+            WHERE release_date >= ? AND release_date < ?
+            ORDER BY likes_count DESC, id
+            LIMIT ?""";
+    // Вес фильма - число пар (чужой лайк на общий с пользователем фильм, лайк того же человека на этот фильм)
+    private static final String SELECT_RECOMMENDED = """
+            SELECT l3.film_id FROM likes l1
+            JOIN likes l2 ON l2.film_id = l1.film_id AND l2.user_id <> l1.user_id
+            JOIN likes l3 ON l3.user_id = l2.user_id
+            WHERE l1.user_id = ?
+              AND l3.film_id NOT IN (SELECT film_id FROM likes WHERE user_id = ?)
+            GROUP BY l3.film_id
+            ORDER BY COUNT(*) DESC, l3.film_id
+            LIMIT ?""";
+    private static final String SELECT_BY_PREFIX = """
+            SELECT * FROM films
+            WHERE REPLACE(LOWER(TRIM(name)), 'ё', 'е') LIKE ? ESCAPE '\\'
+            ORDER BY likes_count DESC, id
+            LIMIT ?""";
+    private static final String SELECT_LIKE_COUNTS = "SELECT likes_count FROM films";
+    private static final String SELECT_SAMPLED_LIKE_COUNTS = "SELECT likes_count FROM films WHERE id IN (:ids)";
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_SEARCH_TERMS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBatcher<LikeOperation> likeWriter =
+            new WriteBatcher<>(this::writeLikesInTransaction, BATCH_SIZE);
+
+    @Override
+    public List<Film> findAll() {
+        List<Film> films = jdbcTemplate.query("SELECT * FROM films ORDER BY id", JdbcFilmStorage::mapFilm);
+        attachLikes(films);
+        log.info("Получение списка всех фильмов. Количество: {}", films.size());
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(Integer after, int limit) {
+        List<Film> films = jdbcTemplate.query("SELECT * FROM films WHERE id > ? ORDER BY id LIMIT ?",
+                JdbcFilmStorage::mapFilm, after == null ? 0 : after, limit);
+        attachLikes(films);
+        return films;
+    }
+
+    @Override
+    @Transactional
+    public Film create(Film film) {
+        insert(List.of(film));
+        insertLikes(List.of(film));
+        log.info("Фильм успешно создан с ID: {}", film.getId());
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> newFilms) {
+        if (newFilms.isEmpty()) {
+            return newFilms;
+        }
+        insert(newFilms);
+        insertLikes(newFilms);
+        log.info("Создано {} фильмов с ID {}-{}", newFilms.size(), newFilms.get(0).getId(),
+                newFilms.get(newFilms.size() - 1).getId());
+        return newFilms;
+    }
+
+    // Лайки заменяются присланными, как и в хранилище в памяти; в базу уходит только разница
+    @Override
+    @Transactional
+    public Film update(Film film) {
+        int updated = jdbcTemplate.update(UPDATE_FILM, film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getId());
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Фильм с id=" + film.getId() + " не найден");
+        }
+        Set<Integer> stored = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM likes WHERE film_id = ?", Integer.class, film.getId()));
+        List<LikeOperation> changes = new ArrayList<>();
+        for (Integer userId : stored) {
+            if (!film.getLikes().contains(userId)) {
+                changes.add(likeOperation(film.getId(), userId, OperationType.REMOVE));
+            }
+        }
+        film.forEachLike(userId -> {
+            if (!stored.contains(userId)) {
+                changes.add(likeOperation(film.getId(), userId, OperationType.ADD));
+            }
+        });
+        writeLikes(changes);
+        film.setLikes(null);
+        attachLikes(List.of(film));
+        log.info("Фильм с ID {} успешно обновлен", film.getId());
+        return film;
+    }
+
+    @Override
+    public Optional<Film> findById(Integer id) {
+        List<Film> films = jdbcTemplate.query("SELECT * FROM films WHERE id = ?", JdbcFilmStorage::mapFilm, id);
+        attachLikes(films);
+        return films.stream().findFirst();
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM films WHERE id = ?)", Boolean.class, id));
+    }
+
+    @Override
+    public void addLike(Integer filmId, Integer userId) {
+        likeWriter.write(likeOperation(filmId, userId, OperationType.ADD));
+        log.info("Лайк пользователя {} добавлен фильму {}", userId, filmId);
+    }
+
+    @Override
+    public void removeLike(Integer filmId, Integer userId) {
+        likeWriter.write(likeOperation(filmId, userId, OperationType.REMOVE));
+        log.info("Лайк пользователя {} удален с фильма {}", userId, filmId);
+    }
+
+    @Override
+    public void applyLikes(List<LikeOperation> operations) {
+        likeWriter.writeAll(operations);
+        log.info("Применено {} операций с лайками", operations.size());
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        List<Film> films = jdbcTemplate.query(SELECT_POPULAR, JdbcFilmStorage::mapFilm, count);
+        attachLikes(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> findPopularByYear(int year, int count) {
+        return findPopularReleased(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1), count);
+    }
+
+    @Override
+    public List<Film> findPopularByDecade(int decade, int count) {
+        return findPopularReleased(LocalDate.of(decade, 1, 1), LocalDate.of(decade + 10, 1, 1), count);
+    }
+
+    @Override
+    public List<Film> findReleased(LocalDate from, LocalDate to, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM films WHERE release_date IS NOT NULL");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND release_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND release_date <= ?");
+            args.add(to);
+        }
+        sql.append(" ORDER BY release_date, id LIMIT ?");
+        args.add(limit);
+        List<Film> films = jdbcTemplate.query(sql.toString(), JdbcFilmStorage::mapFilm, args.toArray());
+        attachLikes(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> findRecommended(Integer userId, int count) {
+        List<Integer> ids = jdbcTemplate.queryForList(SELECT_RECOMMENDED, Integer.class, userId, userId, count);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Film> filmsById = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT * FROM films WHERE id IN (:ids)", Map.of("ids", ids),
+                JdbcFilmStorage::mapFilm).forEach(film -> filmsById.put(film.getId(), film));
+        List<Film> films = ids.stream().map(filmsById::get).filter(Objects::nonNull).toList();
+        attachLikes(films);
+        return films;
+    }
+
+    // Без полнотекстового индекса H2: каждое слово запроса ищется подстрокой, совпадение
+    // в названии весит больше, чем в описании
+    @Override
+    public List<Film> search(String query, int limit) {
+        List<String> terms = SearchIndex.tokenize(query).stream().distinct().limit(MAX_SEARCH_TERMS).toList();
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringJoiner score = new StringJoiner(" + ");
+        List<Object> args = new ArrayList<>();
+        for (String term : terms) {
+            score.add("CASE WHEN REPLACE(LOWER(name), 'ё', 'е') LIKE ? THEN 3 ELSE 0 END");
+            score.add("CASE WHEN REPLACE(LOWER(description), 'ё', 'е') LIKE ? THEN 1 ELSE 0 END");
+            args.add("%" + term + "%");
+            args.add("%" + term + "%");
+        }
+        args.add(limit);
+        List<Film> films = jdbcTemplate.query("SELECT * FROM (SELECT f.*, " + score + " AS score FROM films f) "
+                + "WHERE score > 0 ORDER BY score DESC, id LIMIT ?", JdbcFilmStorage::mapFilm, args.toArray());
+        attachLikes(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> autocomplete(String prefix, int limit) {
+        String pattern = TitleIndex.normalize(prefix)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        List<Film> films = jdbcTemplate.query(SELECT_BY_PREFIX, JdbcFilmStorage::mapFilm, pattern, limit);
+        attachLikes(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> findLikedBy(Integer userId) {
+        List<Film> films = jdbcTemplate.query(
+                "SELECT f.* FROM likes l JOIN films f ON f.id = l.film_id WHERE l.user_id = ? ORDER BY f.id",
+                JdbcFilmStorage::mapFilm, userId);
+        attachLikes(films);
+        return films;
+    }
+
+    @Override
+    public CountSample sampleLikeCounts(int limit) {
+        // COUNT(*), MIN(id) и MAX(id) H2 берет из первичного индекса без обхода таблицы
+        Map<String, Object> stats = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS size, MIN(id) AS min_id, MAX(id) AS max_id FROM films");
+        int size = ((Number) stats.get("size")).intValue();
+        List<Integer> counts;
+        if (size <= limit) {
+            counts = jdbcTemplate.queryForList(SELECT_LIKE_COUNTS, Integer.class);
+        } else {
+            int[] ids = CountSample.randomIds(((Number) stats.get("min_id")).intValue(),
+                    ((Number) stats.get("max_id")).intValue(), limit);
+            counts = namedParameterJdbcTemplate.queryForList(SELECT_SAMPLED_LIKE_COUNTS,
+                    Map.of("ids", Arrays.stream(ids).boxed().toList()), Integer.class);
+        }
+        return new CountSample(size, counts.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Override
+    @Transactional
+    public void clear() {
+        log.info("Очистка хранилища фильмов");
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN id RESTART WITH 1");
+    }
+
+    private void writeLikesInTransaction(List<LikeOperation> operations) {
+        transactionTemplate.executeWithoutResult(status -> writeLikes(operations));
+    }
+
+    // Подряд идущие операции одного типа уходят одним JDBC-пакетом, порядок операций сохраняется.
+    // По числу реально вставленных и удаленных строк собираются изменения likes_count; они применяются
+    // по возрастанию id фильма, чтобы параллельные транзакции блокировали строки films в одном порядке
+    private void writeLikes(List<LikeOperation> operations) {
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        int start = 0;
+        while (start < operations.size()) {
+            OperationType type = operations.get(start).getType();
+            int end = start;
+            while (end < operations.size() && operations.get(end).getType() == type) {
+                end++;
+            }
+            boolean add = type == OperationType.ADD;
+            List<LikeOperation> run = operations.subList(start, end);
+            int[][] counts = jdbcTemplate.batchUpdate(add ? INSERT_LIKE : DELETE_LIKE, run, BATCH_SIZE,
+                    (statement, operation) -> {
+                        statement.setInt(1, operation.getFilmId());
+                        statement.setInt(2, operation.getUserId());
+                        if (add) {
+                            statement.setInt(3, operation.getFilmId());
+                            statement.setInt(4, operation.getUserId());
+                        }
+                    });
+            int index = 0;
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    if (count > 0) {
+                        deltas.merge(run.get(index).getFilmId(), add ? 1 : -1, Integer::sum);
+                    }
+                    index++;
+                }
+            }
+            start = end;
+        }
+        List<Object[]> changes = new ArrayList<>();
+        deltas.forEach((filmId, delta) -> {
+            if (delta != 0) {
+                changes.add(new Object[]{delta, filmId});
+            }
+        });
+        if (!changes.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LIKES_COUNT, changes);
+        }
+    }
+
+    private static LikeOperation likeOperation(Integer filmId, Integer userId, OperationType type) {
+        LikeOperation operation = new LikeOperation();
+        operation.setFilmId(filmId);
+        operation.setUserId(userId);
+        operation.setType(type);
+        return operation;
+    }
+
+    private List<Film> findPopularReleased(LocalDate from, LocalDate until, int count) {
+        List<Film> films = jdbcTemplate.query(SELECT_POPULAR_RELEASED, JdbcFilmStorage::mapFilm, from, until, count);
+        attachLikes(films);
+        return films;
+    }
+
+    private void insert(List<Film> films) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_FILM, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Film film = films.get(i);
+                        new ArgumentPreparedStatementSetter(new Object[]{film.getName(), film.getDescription(),
+                                film.getReleaseDate(), film.getDuration()}).setValues(statement);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+    }
+
+    private void insertLikes(List<Film> films) {
+        List<LikeOperation> likes = new ArrayList<>();
+        for (Film film : films) {
+            film.forEachLike(userId -> likes.add(likeOperation(film.getId(), userId, OperationType.ADD)));
+        }
+        writeLikes(likes);
+    }
+
+    // Лайки подгружаются одним запросом на всю выборку: по списку id для небольших выборок
+    // и по диапазону id для страниц, которые всегда упорядочены по id
+    private void attachLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        if (films.size() <= BATCH_SIZE) {
+            namedParameterJdbcTemplate.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)",
+                    Map.of("ids", filmsById.keySet()), (ResultSet resultSet) -> {
+                        filmsById.get(resultSet.getInt(1)).addLike(resultSet.getInt(2));
+                    });
+        } else {
+            jdbcTemplate.query("SELECT film_id, user_id FROM likes WHERE film_id BETWEEN ? AND ?",
+                    (ResultSet resultSet) -> {
+                        Film film = filmsById.get(resultSet.getInt(1));
+                        if (film != null) {
+                            film.addLike(resultSet.getInt(2));
+                        }
+                    }, films.get(0).getId(), films.get(films.size() - 1).getId());
+        }
+    }
+
+    private static Film mapFilm(ResultSet resultSet, int rowNum) throws SQLException {
+        Film film = new Film();
+        film.setId(resultSet.getInt("id"));
+        film.setName(resultSet.getString("name"));
+        film.setDescription(resultSet.getString("description"));
+        film.setReleaseDate(resultSet.getObject("release_date", LocalDate.class));
+        film.setDuration(resultSet.getObject("duration", Integer.class));
+        return film;
+    }
+}
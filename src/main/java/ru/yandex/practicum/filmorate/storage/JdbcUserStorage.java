@@ -0,0 +1,311 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
+import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+@RequiredArgsConstructor
+public class JdbcUserStorage implements UserStorage {
+    private static final String INSERT_USER = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_USER =
+            "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
+    private static final String MERGE_FRIENDSHIP =
+            "MERGE INTO friendships (user_id, friend_id) KEY (user_id, friend_id) VALUES (?, ?)";
+    private static final String DELETE_FRIENDSHIP = "DELETE FROM friendships WHERE user_id = ? AND friend_id = ?";
+    // Друзья, присланные вместе с пользователем, пишутся одной строкой, как и в хранилище в памяти;
+    // несуществующие пользователи пропускаются
+    private static final String INSERT_FRIEND =
+            "INSERT INTO friendships (user_id, friend_id) SELECT ?, id FROM users WHERE id = ?";
+    private static final String SELECT_FRIEND_COUNTS = """
+            SELECT COALESCE(c.friends_count, 0) FROM users u
+            LEFT JOIN (SELECT user_id, COUNT(*) AS friends_count FROM friendships GROUP BY user_id) c
+                ON c.user_id = u.id""";
+    // Друзья каждого пользователя выборки считаются по диапазону первичного ключа friendships
+    private static final String SELECT_SAMPLED_FRIEND_COUNTS = """
+            SELECT (SELECT COUNT(*) FROM friendships f WHERE f.user_id = u.id) FROM users u
+            WHERE u.id IN (:ids)""";
+    // Друзья друзей, которые еще не в друзьях, по числу общих друзей; подсчет и отбор top-k выполняет база
+    private static final String SELECT_FRIEND_SUGGESTIONS = """
+            SELECT f2.friend_id FROM friendships f1
+            JOIN friendships f2 ON f2.user_id = f1.friend_id
+            WHERE f1.user_id = ? AND f2.friend_id <> ?
+              AND f2.friend_id NOT IN (SELECT friend_id FROM friendships WHERE user_id = ?)
+            GROUP BY f2.friend_id
+            ORDER BY COUNT(*) DESC, f2.friend_id
+            LIMIT ?""";
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBatcher<FriendshipOperation> friendshipWriter =
+            new WriteBatcher<>(this::writeFriendshipsInTransaction, BATCH_SIZE);
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = jdbcTemplate.query("SELECT * FROM users ORDER BY id", JdbcUserStorage::mapUser);
+        attachFriends(users);
+        log.info("Получение списка всех пользователей. Количество: {}", users.size());
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(Integer after, int limit) {
+        List<User> users = jdbcTemplate.query("SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                JdbcUserStorage::mapUser, after == null ? 0 : after, limit);
+        attachFriends(users);
+        return users;
+    }
+
+    @Override
+    @Transactional
+    public User create(User user) {
+        insert(List.of(user));
+        insertFriends(List.of(user));
+        log.info("Пользователь успешно создан с ID: {}", user.getId());
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> newUsers) {
+        if (newUsers.isEmpty()) {
+            return newUsers;
+        }
+        insert(newUsers);
+        insertFriends(newUsers);
+        log.info("Создано {} пользователей с ID {}-{}", newUsers.size(), newUsers.get(0).getId(),
+                newUsers.get(newUsers.size() - 1).getId());
+        return newUsers;
+    }
+
+    // Друзья заменяются присланными, как и в хранилище в памяти
+    @Override
+    @Transactional
+    public User update(User user) {
+        int updated = jdbcTemplate.update(UPDATE_USER, user.getEmail(), user.getLogin(), user.getName(),
+                user.getBirthday(), user.getId());
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь с id=" + user.getId() + " не найден");
+        }
+        jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ?", user.getId());
+        insertFriends(List.of(user));
+        user.setFriends(null);
+        attachFriends(List.of(user));
+        log.info("Пользователь с ID {} успешно обновлен", user.getId());
+        return user;
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        List<User> users = jdbcTemplate.query("SELECT * FROM users WHERE id = ?", JdbcUserStorage::mapUser, id);
+        attachFriends(users);
+        return users.stream().findFirst();
+    }
+
+    @Override
+    public List<User> findByIds(int[] ids) {
+        Map<Integer, User> usersById = new HashMap<>();
+        for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+            List<Integer> chunk = Arrays.stream(ids, from, Math.min(ids.length, from + BATCH_SIZE)).boxed().toList();
+            List<User> users = namedParameterJdbcTemplate.query("SELECT * FROM users WHERE id IN (:ids)",
+                    Map.of("ids", chunk), JdbcUserStorage::mapUser);
+            attachFriends(users);
+            users.forEach(user -> usersById.put(user.getId(), user));
+        }
+        List<User> found = new ArrayList<>(usersById.size());
+        for (int id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)", Boolean.class, id));
+    }
+
+    @Override
+    public void addFriend(Integer userId, Integer friendId) {
+        friendshipWriter.write(friendshipOperation(userId, friendId, OperationType.ADD));
+        log.info("Пользователи {} и {} добавлены друг другу в друзья", userId, friendId);
+    }
+
+    @Override
+    public void removeFriend(Integer userId, Integer friendId) {
+        friendshipWriter.write(friendshipOperation(userId, friendId, OperationType.REMOVE));
+        log.info("Пользователи {} и {} удалены друг у друга из друзей", userId, friendId);
+    }
+
+    @Override
+    public void applyFriendships(List<FriendshipOperation> operations) {
+        friendshipWriter.writeAll(operations);
+        log.info("Применено {} операций с дружбой", operations.size());
+    }
+
+    @Override
+    public List<User> findFriendSuggestions(Integer userId, int count) {
+        int[] ids = jdbcTemplate.queryForList(SELECT_FRIEND_SUGGESTIONS, Integer.class, userId, userId, userId, count)
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return findByIds(ids);
+    }
+
+    @Override
+    public CountSample sampleFriendCounts(int limit) {
+        Map<String, Object> stats = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS size, MIN(id) AS min_id, MAX(id) AS max_id FROM users");
+        int size = ((Number) stats.get("size")).intValue();
+        List<Integer> counts;
+        if (size <= limit) {
+            counts = jdbcTemplate.queryForList(SELECT_FRIEND_COUNTS, Integer.class);
+        } else {
+            int[] ids = CountSample.randomIds(((Number) stats.get("min_id")).intValue(),
+                    ((Number) stats.get("max_id")).intValue(), limit);
+            counts = namedParameterJdbcTemplate.queryForList(SELECT_SAMPLED_FRIEND_COUNTS,
+                    Map.of("ids", Arrays.stream(ids).boxed().toList()), Integer.class);
+        }
+        return new CountSample(size, counts.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Override
+    @Transactional
+    public void clear() {
+        log.info("Очистка хранилища пользователей");
+        // Лайки удаляются каскадом вместе с пользователями, счетчики фильмов обнуляются вместе с ними
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("UPDATE films SET likes_count = 0 WHERE likes_count <> 0");
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
+    }
+
+    private void writeFriendshipsInTransaction(List<FriendshipOperation> operations) {
+        transactionTemplate.executeWithoutResult(status -> writeFriendships(operations));
+    }
+
+    // Дружба пишется двумя строками; подряд идущие операции одного типа уходят одним JDBC-пакетом,
+    // порядок операций сохраняется
+    private void writeFriendships(List<FriendshipOperation> operations) {
+        int start = 0;
+        while (start < operations.size()) {
+            OperationType type = operations.get(start).getType();
+            List<int[]> rows = new ArrayList<>();
+            int end = start;
+            while (end < operations.size() && operations.get(end).getType() == type) {
+                FriendshipOperation operation = operations.get(end++);
+                rows.add(new int[]{operation.getUserId(), operation.getFriendId()});
+                rows.add(new int[]{operation.getFriendId(), operation.getUserId()});
+            }
+            jdbcTemplate.batchUpdate(type == OperationType.ADD ? MERGE_FRIENDSHIP : DELETE_FRIENDSHIP,
+                    rows, BATCH_SIZE, (statement, row) -> {
+                        statement.setInt(1, row[0]);
+                        statement.setInt(2, row[1]);
+                    });
+            start = end;
+        }
+    }
+
+    private static FriendshipOperation friendshipOperation(Integer userId, Integer friendId, OperationType type) {
+        FriendshipOperation operation = new FriendshipOperation();
+        operation.setUserId(userId);
+        operation.setFriendId(friendId);
+        operation.setType(type);
+        return operation;
+    }
+
+    private void insert(List<User> users) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_USER, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        User user = users.get(i);
+                        new ArgumentPreparedStatementSetter(new Object[]{user.getEmail(), user.getLogin(),
+                                user.getName(), user.getBirthday()}).setValues(statement);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+    }
+
+    private void insertFriends(List<User> users) {
+        List<int[]> rows = new ArrayList<>();
+        for (User user : users) {
+            for (int friendId : user.friendIds()) {
+                rows.add(new int[]{user.getId(), friendId});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_FRIEND, rows, BATCH_SIZE, (statement, row) -> {
+            statement.setInt(1, row[0]);
+            statement.setInt(2, row[1]);
+        });
+    }
+
+    private void attachFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> usersById = new HashMap<>();
+        for (User user : users) {
+            usersById.put(user.getId(), user);
+        }
+        if (users.size() <= BATCH_SIZE) {
+            namedParameterJdbcTemplate.query("SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids)",
+                    Map.of("ids", usersById.keySet()), (ResultSet resultSet) -> {
+                        usersById.get(resultSet.getInt(1)).addFriend(resultSet.getInt(2));
+                    });
+        } else {
+            jdbcTemplate.query("SELECT user_id, friend_id FROM friendships WHERE user_id BETWEEN ? AND ?",
+                    (ResultSet resultSet) -> {
+                        User user = usersById.get(resultSet.getInt(1));
+                        if (user != null) {
+                            user.addFriend(resultSet.getInt(2));
+                        }
+                    }, users.get(0).getId(), users.get(users.size() - 1).getId());
+        }
+    }
+
+    private static User mapUser(ResultSet resultSet, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(resultSet.getInt("id"));
+        user.setEmail(resultSet.getString("email"));
+        user.setLogin(resultSet.getString("login"));
+        user.setName(resultSet.getString("name"));
+        user.setBirthday(resultSet.getObject("birthday", LocalDate.class));
+        return user;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IntSet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Обратный индекс лайков: пользователь -> фильмы, которые ему понравились
+class LikeIndex {
+    private final Map<Integer, IntSet> filmsByUser = new ConcurrentHashMap<>();
+
+    void add(int userId, int filmId) {
+        filmsByUser.computeIfAbsent(userId, id -> new IntSet()).add(filmId);
+    }
+
+    void remove(int userId, int filmId) {
+        IntSet films = filmsByUser.get(userId);
+        if (films != null) {
+            films.remove(filmId);
+        }
+    }
+
+    // Фильм заменяется целиком при создании, обновлении и восстановлении из журнала
+    void replace(Film previous, Film current) {
+        if (previous != null) {
+            previous.forEachLike(userId -> remove(userId, previous.getId()));
+        }
+        current.forEachLike(userId -> add(userId, current.getId()));
+    }
+
+    IntSet filmsOf(int userId) {
+        return filmsByUser.get(userId);
+    }
+
+    void clear() {
+        filmsByUser.clear();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+class PopularityIndex {
+    // Ключ упорядочивает фильмы по убыванию лайков, при равенстве - по возрастанию id
+    private final NavigableSet<Long> ranking = new ConcurrentSkipListSet<>();
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Function<Integer, Film> films;
+
+    PopularityIndex(Function<Integer, Film> films) {
+        this.films = films;
+    }
+
+    void refresh(Integer filmId) {
+        Entry entry = entries.computeIfAbsent(filmId, id -> new Entry());
+        // Если позицию фильма уже пересчитывает другой поток, он учтет и этот запрос:
+        // под нагрузкой на один фильм ранжирование обновляет только один поток за раз
+        if (entry.pending.getAndIncrement() > 0) {
+            return;
+        }
+        int seen = 1;
+        do {
+            Film film = films.apply(filmId);
+            move(filmId, entry, film == null ? -1 : film.getLikesCount());
+        } while ((seen = entry.pending.addAndGet(-seen)) > 0);
+    }
+
+    void remove(Integer filmId) {
+        Entry entry = entries.remove(filmId);
+        if (entry != null && entry.likes >= 0) {
+            ranking.remove(key(filmId, entry.likes));
+        }
+    }
+
+    List<Integer> top(int count) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        Iterator<Long> iterator = ranking.iterator();
+        while (ids.size() < count && iterator.hasNext()) {
+            ids.add((int) (iterator.next() & 0xFFFFFFFFL));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    void clear() {
+        entries.clear();
+        ranking.clear();
+    }
+
+    private void move(int filmId, Entry entry, int likes) {
+        int oldLikes = entry.likes;
+        if (oldLikes == likes) {
+            return;
+        }
+        if (likes >= 0) {
+            ranking.add(key(filmId, likes));
+        }
+        if (oldLikes >= 0) {
+            ranking.remove(key(filmId, oldLikes));
+        }
+        entry.likes = likes;
+    }
+
+    private static long key(int filmId, int likes) {
+        return ((long) (Integer.MAX_VALUE - likes) << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    private static final class Entry {
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile int likes = -1;
+    }
+}
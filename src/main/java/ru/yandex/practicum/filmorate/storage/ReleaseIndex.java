@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+// Фильмы, упорядоченные по дате релиза, для выборки по диапазону дат за O(log n + k)
+// и отдельные рейтинги популярности по каждому году и десятилетию. Рейтинги обновляются
+// вместе с лайками так же, как общий рейтинг популярных фильмов
+class ReleaseIndex {
+    // Дни за пределами этого диапазона не помещаются в старшую половину ключа
+    private static final long MAX_DAY = 1L << 30;
+
+    // Ключ - (день релиза, id): порядок по дате, при равенстве - по id
+    private final NavigableSet<Long> byDate = new ConcurrentSkipListSet<>();
+    private final Map<Integer, Long> keys = new ConcurrentHashMap<>();
+    private final Map<Integer, PopularityIndex> years = new ConcurrentHashMap<>();
+    private final Map<Integer, PopularityIndex> decades = new ConcurrentHashMap<>();
+    private final Function<Integer, Film> films;
+
+    ReleaseIndex(Function<Integer, Film> films) {
+        this.films = films;
+    }
+
+    static int decade(int year) {
+        return Math.floorDiv(year, 10) * 10;
+    }
+
+    void put(Film film) {
+        Integer filmId = film.getId();
+        Long key = film.getReleaseDate() == null ? null : key(film.getReleaseDate().toEpochDay(), filmId);
+        Long previous = key == null ? keys.remove(filmId) : keys.put(filmId, key);
+        if (previous != null && !previous.equals(key)) {
+            byDate.remove(previous);
+            int year = year(previous);
+            board(years, year).remove(filmId);
+            board(decades, decade(year)).remove(filmId);
+        }
+        if (key != null) {
+            byDate.add(key);
+            refresh(filmId);
+        }
+    }
+
+    // Вызывается после изменения лайков фильма
+    void refresh(Integer filmId) {
+        Long key = keys.get(filmId);
+        if (key == null) {
+            return;
+        }
+        int year = year(key);
+        board(years, year).refresh(filmId);
+        board(decades, decade(year)).refresh(filmId);
+    }
+
+    // Границы включительно, null - без ограничения с этой стороны
+    List<Integer> released(LocalDate from, LocalDate to, int limit) {
+        NavigableSet<Long> range = byDate;
+        if (from != null) {
+            range = range.tailSet(key(from.toEpochDay(), 0), true);
+        }
+        if (to != null) {
+            range = range.headSet(key(to.toEpochDay() + 1, 0), false);
+        }
+        List<Integer> ids = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Long> iterator = range.iterator();
+        while (ids.size() < limit && iterator.hasNext()) {
+            ids.add((int) (iterator.next() & 0xFFFFFFFFL));
+        }
+        return ids;
+    }
+
+    List<Integer> topOfYear(int year, int count) {
+        PopularityIndex board = years.get(year);
+        return board == null ? List.of() : board.top(count);
+    }
+
+    List<Integer> topOfDecade(int decade, int count) {
+        PopularityIndex board = decades.get(decade);
+        return board == null ? List.of() : board.top(count);
+    }
+
+    void clear() {
+        byDate.clear();
+        keys.clear();
+        years.clear();
+        decades.clear();
+    }
+
+    // Рейтинг видит только фильмы своего периода: если дата фильма изменилась одновременно
+    // с лайком, запоздалое обновление старого рейтинга уберет фильм из него, а не вернет обратно
+    private PopularityIndex board(Map<Integer, PopularityIndex> boards, int period) {
+        boolean byYear = boards == years;
+        return boards.computeIfAbsent(period, p -> new PopularityIndex(filmId -> {
+            Film film = films.apply(filmId);
+            if (film == null || film.getReleaseDate() == null) {
+                return null;
+            }
+            int year = film.getReleaseDate().getYear();
+            return (byYear ? year : decade(year)) == p ? film : null;
+        }));
+    }
+
+    private static long key(long day, int filmId) {
+        return (Math.clamp(day, -MAX_DAY, MAX_DAY) << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    private static int year(long key) {
+        return LocalDate.ofEpochDay(key >> 32).getYear();
+    }
+}
@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Инвертированный индекс по названию и описанию фильмов с ранжированием BM25.
+// Списки вхождений - отсортированные по id массивы int, поэтому запрос из нескольких слов
+// считается слиянием списков без промежуточных коллекций
+class SearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Слово из названия весит как несколько слов описания
+    private static final int NAME_WEIGHT = 3;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c == 'ё' || c == 'Ё' ? 'е' : Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    void index(Film film) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(film.getName())) {
+            frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(film.getDescription())) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(film.getId());
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new Postings()).put(film.getId(), frequency));
+            documents.put(film.getId(), new Document(frequencies.keySet().toArray(String[]::new), length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int[] search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            List<Double> idfs = new ArrayList<>(terms.size());
+            int documentCount = documents.size();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null && list.size > 0) {
+                    lists.add(list);
+                    idfs.add(Math.log(1 + (documentCount - list.size + 0.5) / (list.size + 0.5)));
+                }
+            }
+            if (lists.isEmpty() || limit <= 0) {
+                return new int[0];
+            }
+
+            double averageLength = (double) totalLength / documentCount;
+            int[] cursors = new int[lists.size()];
+            TopK top = new TopK(limit);
+            while (true) {
+                int filmId = Integer.MAX_VALUE;
+                for (int i = 0; i < lists.size(); i++) {
+                    if (cursors[i] < lists.get(i).size) {
+                        filmId = Math.min(filmId, lists.get(i).ids[cursors[i]]);
+                    }
+                }
+                if (filmId == Integer.MAX_VALUE) {
+                    break;
+                }
+                double normalization = K1 * (1 - B + B * documents.get(filmId).length / averageLength);
+                double score = 0;
+                for (int i = 0; i < lists.size(); i++) {
+                    Postings list = lists.get(i);
+                    if (cursors[i] < list.size && list.ids[cursors[i]] == filmId) {
+                        int frequency = list.frequencies[cursors[i]++];
+                        score += idfs.get(i) * frequency * (K1 + 1) / (frequency + normalization);
+                    }
+                }
+                // Биты положительного float упорядочены так же, как сами значения
+                top.offer(filmId, Float.floatToIntBits((float) score));
+            }
+            return top.idsByRank();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(int filmId) {
+        Document document = documents.remove(filmId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Postings list = postings.get(term);
+            list.remove(filmId);
+            if (list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    private record Document(String[] terms, int length) {
+    }
+
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void put(int id, int frequency) {
+            // Новые фильмы получают наибольший id, так что обычно это дописывание в конец
+            int position = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            ids[position] = id;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        void remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+// Размеры хранилищ и распределения числа лайков у фильмов и друзей у пользователей.
+// Распределения и суммы оцениваются по случайной выборке из SAMPLE_SIZE сущностей, поэтому
+// опрос метрик не зависит от размера хранилища; выборка переиспользуется, пока не устарела
+@Component
+@RequiredArgsConstructor
+public class StorageMetrics implements MeterBinder {
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 1.0};
+    private static final int SAMPLE_SIZE = 1000;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    private Snapshot snapshot;
+    private long refreshedAt;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.storage.size", this, metrics -> metrics.snapshot().likes().size())
+                .description("Число записей в хранилище")
+                .tag("entity", "films")
+                .register(registry);
+        Gauge.builder("filmorate.storage.size", this, metrics -> metrics.snapshot().friends().size())
+                .description("Число записей в хранилище")
+                .tag("entity", "users")
+                .register(registry);
+        bindDistribution(registry, "filmorate.film.likes", "filmorate.storage.likes",
+                "Число лайков у фильма", Snapshot::likes);
+        bindDistribution(registry, "filmorate.user.friends", "filmorate.storage.friends",
+                "Число друзей у пользователя", Snapshot::friends);
+    }
+
+    private void bindDistribution(MeterRegistry registry, String name, String totalName, String description,
+                                  Function<Snapshot, CountSample> sizes) {
+        for (double quantile : QUANTILES) {
+            ToDoubleFunction<StorageMetrics> value =
+                    metrics -> quantile(sizes.apply(metrics.snapshot()).counts(), quantile);
+            Gauge.builder(name, this, value)
+                    .description(description)
+                    .tag("quantile", Double.toString(quantile))
+                    .register(registry);
+        }
+        Gauge.builder(totalName, this, metrics -> total(sizes.apply(metrics.snapshot())))
+                .description(description + ", сумма по хранилищу (оценка по выборке)")
+                .register(registry);
+    }
+
+    private synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        if (snapshot == null || now - refreshedAt > REFRESH_NANOS) {
+            CountSample likes = filmStorage.sampleLikeCounts(SAMPLE_SIZE);
+            CountSample friends = userStorage.sampleFriendCounts(SAMPLE_SIZE);
+            Arrays.sort(likes.counts());
+            Arrays.sort(friends.counts());
+            snapshot = new Snapshot(likes, friends);
+            refreshedAt = now;
+        }
+        return snapshot;
+    }
+
+    // Массив отсортирован; пустое хранилище дает ноль
+    private static double quantile(int[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    // Среднее по выборке, умноженное на размер хранилища; без выборки сумма точная
+    private static double total(CountSample sample) {
+        if (sample.counts().length == 0) {
+            return 0;
+        }
+        return Math.round(Arrays.stream(sample.counts()).average().orElse(0) * sample.size());
+    }
+
+    private record Snapshot(CountSample likes, CountSample friends) {
+    }
+}
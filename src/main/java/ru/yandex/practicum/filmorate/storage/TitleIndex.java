@@ -0,0 +1,277 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+// Префиксное дерево по названиям фильмов для подсказок при наборе. Узлы хранят потомков
+// в отсортированных массивах, а на первых уровнях, где под префиксом много фильмов,
+// держат готовый список самых популярных из них. Лайки обновляют эти списки на месте,
+// и пересчет по поддереву нужен только когда фильм из списка теряет лайки или название
+class TitleIndex {
+    static final int CACHE_SIZE = 50;
+    private static final int CACHED_DEPTH = 3;
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_IDS = new int[0];
+
+    private final IntFunction<Film> films;
+    private final Map<Integer, String> titles = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node(0);
+
+    TitleIndex(IntFunction<Film> films) {
+        this.films = films;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    void put(Film film) {
+        String title = normalize(film.getName());
+        lock.writeLock().lock();
+        try {
+            String previous = titles.put(film.getId(), title);
+            if (title.equals(previous)) {
+                walk(film.getId(), title, false);
+                return;
+            }
+            if (previous != null) {
+                remove(film.getId(), previous);
+            }
+            walk(film.getId(), title, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вызывается после изменения лайков фильма
+    void refresh(int filmId) {
+        String title = titles.get(filmId);
+        if (title == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            walk(filmId, title, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            root = new Node(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int[] complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null || limit <= 0) {
+                return NO_IDS;
+            }
+            if (isCached(node) && limit <= CACHE_SIZE) {
+                long[] top = top(node);
+                int[] ids = new int[Math.min(limit, top.length)];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = TopK.id(top[i]);
+                }
+                return ids;
+            }
+            TopK top = new TopK(limit);
+            collect(node, top);
+            return top.idsByRank();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Проходит по узлам названия: при добавлении создает недостающие узлы и кладет фильм в конечный,
+    // в любом случае предлагает фильм спискам популярных на первых уровнях
+    private void walk(int filmId, String title, boolean insert) {
+        Node node = root;
+        for (int i = 0; i < title.length() && node != null; i++) {
+            node = insert ? node.childOrCreate(title.charAt(i)) : node.child(title.charAt(i));
+            if (node != null && isCached(node)) {
+                offer(node, filmId);
+            }
+        }
+        if (insert) {
+            node.ids = Arrays.copyOf(node.ids, node.ids.length + 1);
+            node.ids[node.ids.length - 1] = filmId;
+        }
+    }
+
+    private void remove(int filmId, String title) {
+        Node node = root;
+        for (int i = 0; i < title.length() && node != null; i++) {
+            node = node.child(title.charAt(i));
+            if (node != null && isCached(node)) {
+                synchronized (node) {
+                    node.version++;
+                    if (node.top != null && indexOf(node.top, filmId) >= 0) {
+                        node.top = null;
+                    }
+                }
+            }
+        }
+        if (node != null) {
+            int[] ids = node.ids;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == filmId) {
+                    int[] remaining = Arrays.copyOf(ids, ids.length - 1);
+                    System.arraycopy(ids, i + 1, remaining, i, ids.length - i - 1);
+                    node.ids = remaining;
+                    break;
+                }
+            }
+        }
+    }
+
+    private void offer(Node node, int filmId) {
+        Film film = films.apply(filmId);
+        if (film == null) {
+            return;
+        }
+        long key = TopK.key(filmId, film.getLikesCount());
+        synchronized (node) {
+            node.version++;
+            long[] top = node.top;
+            if (top == null) {
+                return;
+            }
+            int position = indexOf(top, filmId);
+            long[] updated;
+            if (position >= 0) {
+                // Неполный список содержит все поддерево, иначе на освободившееся место мог бы
+                // претендовать фильм, которого в списке нет
+                if (key < top[position] && top.length == CACHE_SIZE) {
+                    node.top = null;
+                    return;
+                }
+                updated = top.clone();
+                updated[position] = key;
+            } else if (top.length < CACHE_SIZE) {
+                updated = Arrays.copyOf(top, top.length + 1);
+                updated[top.length] = key;
+            } else if (key > top[top.length - 1]) {
+                updated = top.clone();
+                updated[top.length - 1] = key;
+            } else {
+                return;
+            }
+            sortDescending(updated);
+            node.top = updated;
+        }
+    }
+
+    private long[] top(Node node) {
+        long[] top = node.top;
+        if (top != null) {
+            return top;
+        }
+        int version;
+        synchronized (node) {
+            version = node.version;
+        }
+        TopK collected = new TopK(CACHE_SIZE);
+        collect(node, collected);
+        top = collected.keysByRank();
+        synchronized (node) {
+            // Если за время обхода лайки менялись, список может быть неточным: отдаем, но не сохраняем
+            if (node.version == version) {
+                node.top = top;
+            }
+        }
+        return top;
+    }
+
+    private void collect(Node node, TopK top) {
+        for (int filmId : node.ids) {
+            Film film = films.apply(filmId);
+            if (film != null) {
+                top.offer(filmId, film.getLikesCount());
+            }
+        }
+        for (Node child : node.children) {
+            collect(child, top);
+        }
+    }
+
+    private static boolean isCached(Node node) {
+        return node.depth > 0 && node.depth <= CACHED_DEPTH;
+    }
+
+    private static int indexOf(long[] top, int filmId) {
+        for (int i = 0; i < top.length; i++) {
+            if (TopK.id(top[i]) == filmId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void sortDescending(long[] keys) {
+        Arrays.sort(keys);
+        for (int i = 0, j = keys.length - 1; i < j; i++, j--) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+
+    private static class Node {
+        private final int depth;
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private int[] ids = NO_IDS;
+        private volatile long[] top;
+        private int version;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+
+        Node child(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            return position >= 0 ? children[position] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            if (position >= 0) {
+                return children[position];
+            }
+            position = -position - 1;
+            Node child = new Node(depth + 1);
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            newLabels[position] = label;
+            newChildren[position] = child;
+            System.arraycopy(labels, position, newLabels, position + 1, labels.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// Минимальная куча на k элементов: ключ упаковывает счет в старшие 32 бита,
+// а инвертированный id в младшие, так что при равенстве выше оказывается меньший id
+class TopK {
+    private final long[] heap;
+    private int size;
+
+    TopK(int capacity) {
+        heap = new long[capacity];
+    }
+
+    static long key(int id, int score) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - id);
+    }
+
+    static int id(long key) {
+        return Integer.MAX_VALUE - (int) key;
+    }
+
+    void offer(int id, int score) {
+        long key = key(id, score);
+        if (size < heap.length) {
+            heap[size] = key;
+            siftUp(size++);
+        } else if (key > heap[0]) {
+            heap[0] = key;
+            siftDown(0);
+        }
+    }
+
+    int[] idsByRank() {
+        long[] keys = keysByRank();
+        int[] ids = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ids[i] = id(keys[i]);
+        }
+        return ids;
+    }
+
+    long[] keysByRank() {
+        long[] keys = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            keys[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return keys;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < size && heap[left + 1] < heap[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long value = heap[i];
+        heap[i] = heap[j];
+        heap[j] = value;
+    }
+}
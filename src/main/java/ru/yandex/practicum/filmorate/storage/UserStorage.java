@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
@@ -8,13 +9,30 @@ import java.util.Optional;
 public interface UserStorage {
     List<User> findAll();
 
+    List<User> findPage(Integer after, int limit);
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User user);
 
     Optional<User> findById(Integer id);
 
+    List<User> findByIds(int[] ids);
+
     boolean existsById(Integer id);
 
+    void addFriend(Integer userId, Integer friendId);
+
+    void removeFriend(Integer userId, Integer friendId);
+
+    void applyFriendships(List<FriendshipOperation> operations);
+
+    List<User> findFriendSuggestions(Integer userId, int count);
+
+    // Число друзей каждого пользователя без загрузки самих пользователей, для метрик
+    CountSample sampleFriendCounts(int limit);
+
     void clear();
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Одиночные изменения от параллельных запросов собираются в один JDBC-пакет. Поток, получивший
+// блокировку, выполняет все накопившиеся операции одной транзакцией, остальные ждут блокировку и
+// находят свою операцию уже выполненной. Без конкуренции пакет состоит из одной операции и задержки нет.
+// Внутри уже открытой транзакции операция выполняется сразу, чтобы не смешивать чужие изменения
+// с транзакцией, которая может откатиться
+final class WriteBatcher<T> {
+    private final Consumer<List<T>> writer;
+    private final int maxBatchSize;
+    private final Queue<Pending<T>> queue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    WriteBatcher(Consumer<List<T>> writer, int maxBatchSize) {
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    void write(T operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            writer.accept(List.of(operation));
+            return;
+        }
+        Pending<T> pending = new Pending<>(operation);
+        queue.add(pending);
+        flushLock.lock();
+        try {
+            while (!pending.done) {
+                flush();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        if (pending.failure != null) {
+            throw pending.failure;
+        }
+    }
+
+    // Пакет от клиента уже собран, он только не должен идти параллельно с одиночными изменениями
+    void writeAll(List<T> operations) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            writer.accept(operations);
+            return;
+        }
+        flushLock.lock();
+        try {
+            writer.accept(operations);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flush() {
+        List<Pending<T>> batch = new ArrayList<>();
+        List<T> operations = new ArrayList<>();
+        Pending<T> next;
+        while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+            batch.add(next);
+            operations.add(next.operation);
+        }
+        try {
+            writer.accept(operations);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).failure = e;
+            } else {
+                // Транзакция пакета откатилась; ошибка одной операции не должна достаться чужим запросам
+                for (Pending<T> pending : batch) {
+                    try {
+                        writer.accept(List.of(pending.operation));
+                    } catch (RuntimeException failure) {
+                        pending.failure = failure;
+                    }
+                }
+            }
+        }
+        batch.forEach(pending -> pending.done = true);
+    }
+
+    // Поля меняются и читаются только под flushLock
+    private static final class Pending<T> {
+        private final T operation;
+        private boolean done;
+        private RuntimeException failure;
+
+        private Pending(T operation) {
+            this.operation = operation;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+// Снимок из записей фиксированной структуры: [длина][тип][поля]. Даты хранятся как
+// номер дня от эпохи, лайки и друзья - упакованными массивами int. При чтении файл
+// отображается в память окнами, так что разбор идет прямо из страниц ОС без JSON
+final class BinarySnapshot {
+    private static final int MAGIC = 0x464C4D53;
+    private static final int VERSION = 1;
+    private static final byte FILM = 1;
+    private static final byte USER = 2;
+    private static final int END = 0;
+    private static final int MISSING = Integer.MIN_VALUE;
+    private static final int NULL_LENGTH = -1;
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private BinarySnapshot() {
+    }
+
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private final DataOutputStream body = new DataOutputStream(record);
+
+        Writer(Path file, long segment) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(segment);
+        }
+
+        void write(Film film) throws IOException {
+            record.reset();
+            body.writeByte(FILM);
+            body.writeInt(film.getId());
+            writeString(film.getName());
+            writeString(film.getDescription());
+            writeDate(film.getReleaseDate());
+            body.writeInt(film.getDuration() == null ? MISSING : film.getDuration());
+            writeInts(film.likeIds());
+            flushRecord();
+        }
+
+        void write(User user) throws IOException {
+            record.reset();
+            body.writeByte(USER);
+            body.writeInt(user.getId());
+            writeString(user.getEmail());
+            writeString(user.getLogin());
+            writeString(user.getName());
+            writeDate(user.getBirthday());
+            writeInts(user.friendIds());
+            flushRecord();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                out.writeInt(END);
+                out.flush();
+                channel.force(true);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                body.writeInt(NULL_LENGTH);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            body.writeInt(bytes.length);
+            body.write(bytes);
+        }
+
+        private void writeDate(LocalDate date) throws IOException {
+            body.writeInt(date == null ? MISSING : Math.toIntExact(date.toEpochDay()));
+        }
+
+        private void writeInts(int[] values) throws IOException {
+            body.writeInt(values.length);
+            for (int value : values) {
+                body.writeInt(value);
+            }
+        }
+
+        private void flushRecord() throws IOException {
+            out.writeInt(record.size());
+            record.writeTo(out);
+        }
+    }
+
+    // Возвращает номер сегмента журнала, с которого нужно продолжить восстановление
+    static long read(Path file, Consumer<Film> films, Consumer<User> users) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            reader.require(Integer.BYTES * 2 + Long.BYTES);
+            if (reader.buffer.getInt() != MAGIC || reader.buffer.getInt() != VERSION) {
+                throw new IOException("Неизвестный формат снимка " + file.getFileName());
+            }
+            long segment = reader.buffer.getLong();
+
+            while (true) {
+                reader.require(Integer.BYTES);
+                int length = reader.buffer.getInt();
+                if (length == END) {
+                    return segment;
+                }
+                reader.require(length);
+                byte type = reader.buffer.get();
+                switch (type) {
+                    case FILM -> films.accept(reader.readFilm());
+                    case USER -> users.accept(reader.readUser());
+                    default -> throw new IOException("Неизвестный тип записи в снимке: " + type);
+                }
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+
+        Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW_SIZE));
+        }
+
+        // Сдвигает окно отображения, если следующая запись в него не помещается
+        void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            windowStart += buffer.position();
+            long length = Math.min(size - windowStart, Math.max(WINDOW_SIZE, bytes));
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            if (buffer.remaining() < bytes) {
+                throw new EOFException("Снимок обрывается на позиции " + windowStart);
+            }
+        }
+
+        Film readFilm() {
+            Film film = new Film();
+            film.setId(buffer.getInt());
+            film.setName(readString());
+            film.setDescription(readString());
+            film.setReleaseDate(readDate());
+            int duration = buffer.getInt();
+            film.setDuration(duration == MISSING ? null : duration);
+            film.addLikes(readInts());
+            return film;
+        }
+
+        User readUser() {
+            User user = new User();
+            user.setId(buffer.getInt());
+            user.setEmail(readString());
+            user.setLogin(readString());
+            user.setName(readString());
+            user.setBirthday(readDate());
+            user.addFriends(readInts());
+            return user;
+        }
+
+        private String readString() {
+            int length = buffer.getInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private LocalDate readDate() {
+            int epochDay = buffer.getInt();
+            return epochDay == MISSING ? null : LocalDate.ofEpochDay(epochDay);
+        }
+
+        private int[] readInts() {
+            int[] values = new int[buffer.getInt()];
+            buffer.asIntBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Integer.BYTES);
+            return values;
+        }
+    }
+}
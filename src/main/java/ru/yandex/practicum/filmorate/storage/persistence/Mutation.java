@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Mutation {
+    private MutationType type;
+    private Film film;
+    private User user;
+    private Integer id;
+    private Integer otherId;
+
+    // Запись сериализуется фоновым потоком журнала позже, поэтому в нее попадает копия сущности
+    // на момент изменения, а не живой объект, который к тому времени мог получить новые лайки
+    public static Mutation putFilm(Film film) {
+        return new Mutation(MutationType.FILM_PUT, copy(film), null, null, null);
+    }
+
+    public static Mutation putUser(User user) {
+        return new Mutation(MutationType.USER_PUT, null, copy(user), null, null);
+    }
+
+    public static Mutation like(Integer filmId, Integer userId, boolean add) {
+        return new Mutation(add ? MutationType.LIKE_ADD : MutationType.LIKE_REMOVE, null, null, filmId, userId);
+    }
+
+    public static Mutation friendship(Integer userId, Integer friendId, boolean add) {
+        return new Mutation(add ? MutationType.FRIEND_ADD : MutationType.FRIEND_REMOVE, null, null, userId, friendId);
+    }
+
+    public static Mutation clear(MutationType type) {
+        return new Mutation(type, null, null, null, null);
+    }
+
+    private static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.addLikes(film.likeIds());
+        return copy;
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.addFriends(user.friendIds());
+        return copy;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+public interface MutationLog {
+    MutationLog NONE = mutation -> 0;
+
+    // Возвращает порядковый номер записи, по которому можно дождаться ее сброса на диск
+    long append(Mutation mutation);
+
+    // Ждет, пока запись с данным номером и все предыдущие окажутся на диске. Вызывается после
+    // снятия блокировки сущности, чтобы ожидание fsync не задерживало другие изменения
+    default void awaitDurable(long sequence) {
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+public enum MutationType {
+    FILM_PUT,
+    LIKE_ADD,
+    LIKE_REMOVE,
+    FILMS_CLEAR,
+    USER_PUT,
+    FRIEND_ADD,
+    FRIEND_REMOVE,
+    USERS_CLEAR
+}
@@ -0,0 +1,262 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@Profile("!jdbc")
+@ConditionalOnProperty(prefix = "filmorate.persistence", name = "enabled", havingValue = "true")
+public class PersistenceManager {
+    private static final int SNAPSHOT_PAGE_SIZE = 1000;
+
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final ObjectMapper objectMapper;
+    private final PersistenceProperties properties;
+    private final Path directory;
+    private WriteAheadLog writeAheadLog;
+    private ScheduledExecutorService scheduler;
+
+    public PersistenceManager(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage,
+                              ObjectMapper objectMapper, PersistenceProperties properties) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.properties = properties;
+        this.directory = Paths.get(properties.getDirectory());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        long nextSegment = recover();
+        writeAheadLog = new WriteAheadLog(directory, nextSegment, objectMapper.writerFor(Mutation.class), properties);
+        filmStorage.setMutationLog(writeAheadLog);
+        userStorage.setMutationLog(writeAheadLog);
+
+        if (properties.getSnapshotIntervalMs() > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, properties.getSnapshotIntervalMs(),
+                    properties.getSnapshotIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+        log.info("Журналирование изменений включено, каталог: {}", directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (properties.isSnapshotOnShutdown()) {
+            snapshot();
+        }
+        filmStorage.setMutationLog(MutationLog.NONE);
+        userStorage.setMutationLog(MutationLog.NONE);
+        writeAheadLog.close();
+    }
+
+    // Снимок "нечеткий": он пишется без остановки записи, поэтому сначала журнал переключается
+    // на новый сегмент. Все изменения старых сегментов уже попали в снимок, а повторное
+    // применение изменений нового сегмента поверх снимка идемпотентно
+    public synchronized void snapshot() throws IOException {
+        long segment = writeAheadLog.rotate();
+        long startedAt = System.nanoTime();
+        SnapshotFormat format = properties.getSnapshotFormat();
+        Path temporary = directory.resolve(format.getFileName() + ".tmp");
+        if (format == SnapshotFormat.BINARY) {
+            writeBinarySnapshot(temporary, segment);
+        } else {
+            writeJsonSnapshot(temporary, segment);
+        }
+        Files.move(temporary, directory.resolve(format.getFileName()),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Снимок другого формата остался от прежних настроек и теперь устарел
+        for (SnapshotFormat other : SnapshotFormat.values()) {
+            if (other != format) {
+                Files.deleteIfExists(directory.resolve(other.getFileName()));
+            }
+        }
+
+        for (Path path : segments()) {
+            if (segmentNumber(path) < segment) {
+                Files.delete(path);
+            }
+        }
+        log.info("Снимок хранилищ записан за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    long recover() throws IOException {
+        long startedAt = System.nanoTime();
+        long firstSegment = 1;
+        Path binarySnapshot = directory.resolve(SnapshotFormat.BINARY.getFileName());
+        Path jsonSnapshot = directory.resolve(SnapshotFormat.JSON.getFileName());
+        if (Files.exists(binarySnapshot)) {
+            firstSegment = BinarySnapshot.read(binarySnapshot,
+                    filmStorage::restore, userStorage::restore);
+        } else if (Files.exists(jsonSnapshot)) {
+            firstSegment = loadJsonSnapshot(jsonSnapshot);
+        }
+
+        long lastSegment = firstSegment - 1;
+        long replayed = 0;
+        for (Path path : segments()) {
+            long segment = segmentNumber(path);
+            if (segment >= firstSegment) {
+                replayed += replay(path);
+            }
+            lastSegment = Math.max(lastSegment, segment);
+        }
+
+        log.info("Хранилища восстановлены за {} мс: применено {} изменений из журнала",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), replayed);
+        return lastSegment + 1;
+    }
+
+    private void writeBinarySnapshot(Path file, long segment) throws IOException {
+        try (BinarySnapshot.Writer writer = new BinarySnapshot.Writer(file, segment)) {
+            forEachEntity(filmStorage::findPage, Film::getId, writer::write);
+            forEachEntity(userStorage::findPage, User::getId, writer::write);
+        }
+    }
+
+    private void writeJsonSnapshot(Path file, long segment) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("segment", segment);
+            generator.writeArrayFieldStart("films");
+            forEachEntity(filmStorage::findPage, Film::getId, film -> objectMapper.writeValue(generator, film));
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("users");
+            forEachEntity(userStorage::findPage, User::getId, user -> objectMapper.writeValue(generator, user));
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private <T> void forEachEntity(BiFunction<Integer, Integer, List<T>> pageLoader, Function<T, Integer> idGetter,
+                                   EntityWriter<T> writer) throws IOException {
+        Integer after = null;
+        List<T> page;
+        do {
+            page = pageLoader.apply(after, SNAPSHOT_PAGE_SIZE);
+            for (T entity : page) {
+                writer.write(entity);
+            }
+            if (!page.isEmpty()) {
+                after = idGetter.apply(page.get(page.size() - 1));
+            }
+        } while (page.size() == SNAPSHOT_PAGE_SIZE);
+    }
+
+    private long loadJsonSnapshot(Path snapshot) throws IOException {
+        long segment = 1;
+        try (InputStream in = Files.newInputStream(snapshot);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "segment" -> segment = parser.getLongValue();
+                    case "films" -> {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            filmStorage.restore(objectMapper.readValue(parser, Film.class));
+                        }
+                    }
+                    case "users" -> {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            userStorage.restore(objectMapper.readValue(parser, User.class));
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return segment;
+    }
+
+    private long replay(Path path) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(Mutation.class);
+        long replayed = 0;
+        try (BufferedReader lines = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                Mutation mutation;
+                try {
+                    mutation = reader.readValue(line);
+                } catch (IOException e) {
+                    // Недописанная последняя запись после аварийной остановки
+                    log.warn("Журнал {} поврежден после {} записей, остаток пропущен", path.getFileName(), replayed);
+                    break;
+                }
+                filmStorage.replay(mutation);
+                userStorage.replay(mutation);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            log.error("Не удалось записать снимок хранилищ", e);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("wal-\\d+\\.log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - 4));
+    }
+
+    @FunctionalInterface
+    private interface EntityWriter<T> {
+        void write(T entity) throws IOException;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.persistence")
+public class PersistenceProperties {
+    private boolean enabled = false;
+    private String directory = "data";
+    private int queueCapacity = 65_536;
+    private int fsyncBatchSize = 512;
+    private long fsyncIntervalMs = 5;
+    // Ждать ли fsync перед ответом клиенту. Без этого долговечность best-effort: подтвержденные
+    // изменения за последний интервал fsync могут потеряться при аварии
+    private boolean syncCommit = false;
+    private long snapshotIntervalMs = 600_000;
+    private boolean snapshotOnShutdown = true;
+    private SnapshotFormat snapshotFormat = SnapshotFormat.BINARY;
+}
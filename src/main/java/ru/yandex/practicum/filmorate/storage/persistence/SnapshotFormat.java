@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+public enum SnapshotFormat {
+    JSON("snapshot.json"),
+    BINARY("snapshot.bin");
+
+    private final String fileName;
+
+    SnapshotFormat(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
@@ -0,0 +1,237 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Записи пишутся фоновым потоком пачками с одним fsync на пачку (group commit). По умолчанию
+// append возвращается сразу после постановки в очередь, и долговечность best-effort: при аварии
+// теряются изменения за последние fsync-interval-ms, уже подтвержденные клиентам. С sync-commit
+// вызывающий поток ждет fsync своей пачки в awaitDurable
+@Slf4j
+public class WriteAheadLog implements MutationLog, Closeable {
+    private final Path directory;
+    private final ObjectWriter writer;
+    private final BlockingQueue<Mutation> queue;
+    private final int fsyncBatchSize;
+    private final long fsyncIntervalNanos;
+    private final long pollTimeoutNanos;
+    private final Thread writerThread;
+    private final Object segmentLock = new Object();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition notFull = appendLock.newCondition();
+    // Ожидание fsync - на Condition, а не Object.wait: на JDK 21 wait внутри synchronized закрепляет
+    // виртуальный поток за несущим, и с sync-commit каждый запрос, ждущий сброса, занимал бы его
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableChanged = durableLock.newCondition();
+    private final boolean syncCommit;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+    private volatile long durable;
+
+    // Номер последней поставленной в очередь записи; выдается под appendLock вместе с offer,
+    // поэтому совпадает с позицией записи в очереди
+    private long appended;
+    // Число записанных в файл записей, меняется под segmentLock
+    private long written;
+
+    private long segment;
+    private FileChannel channel;
+    private OutputStream out;
+    private int unsynced;
+    private long lastSync = System.nanoTime();
+
+    public WriteAheadLog(Path directory, long segment, ObjectWriter writer,
+                         PersistenceProperties properties) throws IOException {
+        this.directory = directory;
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.fsyncBatchSize = properties.getFsyncBatchSize();
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFsyncIntervalMs());
+        this.pollTimeoutNanos = Math.max(fsyncIntervalNanos, TimeUnit.MILLISECONDS.toNanos(1));
+        this.syncCommit = properties.isSyncCommit();
+        openSegment(segment);
+        this.writerThread = new Thread(this::writeLoop, "wal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Вызывающий поток только кладет мутацию в очередь: запись и fsync выполняет фоновый поток
+    // пачками, поэтому стоимость долговечности на одну операцию - микросекунды. Если очередь
+    // заполнена, поток ждет в notFull.await, которое отпускает appendLock: остальные потоки не стоят
+    // за ним в очереди на блокировку и ставят записи, как только фоновый поток освободит место
+    @Override
+    public long append(Mutation mutation) {
+        checkFailure();
+        appendLock.lock();
+        try {
+            while (!queue.offer(mutation)) {
+                notFull.await();
+                checkFailure();
+            }
+            return ++appended;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание места в журнале изменений", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+        if (!syncCommit) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durable < sequence && failure == null) {
+                durableChanged.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание записи журнала изменений на диск", e);
+        } finally {
+            durableLock.unlock();
+        }
+        if (durable < sequence) {
+            checkFailure();
+        }
+    }
+
+    public long rotate() throws IOException {
+        synchronized (segmentLock) {
+            sync();
+            out.close();
+            openSegment(segment + 1);
+            log.info("Журнал изменений переключен на сегмент {}", segment);
+            return segment;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (segmentLock) {
+            sync();
+            out.close();
+        }
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%08d.log", segment));
+    }
+
+    private void writeLoop() {
+        List<Mutation> batch = new ArrayList<>(fsyncBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Mutation first = queue.poll(pollTimeoutNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, fsyncBatchSize - 1);
+                    signalNotFull();
+                }
+                // После ошибки записи журнал неполон, и дописывать в него нельзя: записи, успевшие
+                // попасть в очередь до отказа, отбрасываются, а новые append отклоняются
+                if (failure == null) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                fail(e, batch.size());
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Mutation> batch) throws IOException {
+        synchronized (segmentLock) {
+            for (Mutation mutation : batch) {
+                out.write(writer.writeValueAsBytes(mutation));
+                out.write('\n');
+            }
+            written += batch.size();
+            unsynced += batch.size();
+            // В режиме sync-commit пачка сбрасывается, как только очередь опустела: пока идет fsync,
+            // в очереди копится следующая пачка, и ждущие потоки не платят за интервал
+            if (unsynced >= fsyncBatchSize || System.nanoTime() - lastSync >= fsyncIntervalNanos
+                    || syncCommit && !batch.isEmpty() && queue.isEmpty()) {
+                sync();
+            }
+        }
+    }
+
+    private void sync() throws IOException {
+        if (unsynced > 0) {
+            out.flush();
+            channel.force(false);
+            unsynced = 0;
+            durableLock.lock();
+            try {
+                durable = written;
+                durableChanged.signalAll();
+            } finally {
+                durableLock.unlock();
+            }
+        }
+        lastSync = System.nanoTime();
+    }
+
+    private void fail(IOException e, int lost) {
+        log.error("Не удалось записать {} изменений в журнал, дальнейшие изменения будут отклоняться", lost, e);
+        durableLock.lock();
+        try {
+            failure = e;
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+        signalNotFull();
+    }
+
+    private void signalNotFull() {
+        appendLock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void checkFailure() {
+        IOException e = failure;
+        if (e != null) {
+            throw new IllegalStateException("Журнал изменений недоступен после ошибки записи", e);
+        }
+    }
+
+    private void openSegment(long segment) throws IOException {
+        this.segment = segment;
+        this.channel = FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+    }
+}
@@ -0,0 +1,43 @@
+CREATE TABLE IF NOT EXISTS films (
+    id           INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE,
+    duration     INTEGER,
+    -- Число лайков ведут запросы лайков и снятия лайков, чтобы топ не агрегировал всю таблицу likes
+    likes_count  INTEGER DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id INTEGER NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id INTEGER NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+
+-- Базы, созданные до появления счетчика: колонка добавляется пустой и заполняется один раз
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INTEGER;
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) WHERE likes_count IS NULL;
+ALTER TABLE films ALTER COLUMN likes_count SET DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, id);
+
+-- Дружба взаимная, поэтому хранится двумя строками: (a, b) и (b, a)
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   INTEGER NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id INTEGER NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend_id_idx ON friendships (friend_id);
@@ -0,0 +1,271 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Генератор нагрузки на API уже запущенного FilmorateApplication со смесью запросов из loadtest.mix.
+// Запросы отправляются с постоянной частотой loadtest.rate независимо от ответов сервера (открытая
+// модель): задержка считается от запланированного момента отправки, поэтому очередь перед
+// перегруженным сервером попадает в перцентили, а не прячется за паузами клиента
+// (coordinated omission). Рядом выводится и время обслуживания - от фактической отправки до ответа.
+// Неуспешные ответы и таймауты считаются отдельно, но их задержка тоже пишется в свою гистограмму:
+// иначе отказ через 60 секунд не был бы виден ни в одном перцентиле.
+// mvn -Ploadtest test -DskipTests [-Dloadtest.url=http://localhost:8080] [-Dloadtest.rate=2000]
+//     [-Dloadtest.mix=films=20,popular=30,like=10,friends=30,common=10] [-Dloadtest.seed=false]
+public class ApiLoadGenerator {
+    // Самая долгая задержка, которую различает гистограмма, и точность в значащих цифрах
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(5);
+    private static final int PRECISION = 3;
+
+    enum Operation {
+        FILMS, POPULAR, LIKE, FRIENDS, COMMON
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.url", "http://localhost:8080");
+        int films = Integer.getInteger("loadtest.films", 1000);
+        int users = Integer.getInteger("loadtest.users", 1000);
+        int rate = Integer.getInteger("loadtest.rate", 1000);
+        int connections = Integer.getInteger("loadtest.connections", 200);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+        Duration measurement = Duration.ofSeconds(Long.getLong("loadtest.seconds", 30));
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix",
+                "films=20,popular=30,like=10,friends=30,common=10"));
+        Path output = Path.of(System.getProperty("loadtest.output", "target/loadtest.hgrm"));
+
+        LoadBenchmark.awaitStarted(baseUrl);
+        if (Boolean.parseBoolean(System.getProperty("loadtest.seed", "true"))) {
+            LoadBenchmark.seed(baseUrl, films, users);
+        }
+        ApiLoadGenerator generator = new ApiLoadGenerator(baseUrl, films, users, mix);
+        System.out.printf("Цель %s: %d запросов/с, %d соединений, смесь %s%n", baseUrl, rate, connections, mix);
+        generator.run(rate, connections, warmup);
+        Result result = generator.run(rate, connections, measurement);
+
+        result.print(System.out);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (PrintStream file = new PrintStream(new FileOutputStream(output.toFile()), true, StandardCharsets.UTF_8)) {
+            result.total().outputPercentileDistribution(file, 1e6);
+        }
+        System.out.println("Распределение задержек (мс) сохранено в " + output.toAbsolutePath());
+    }
+
+    private final String baseUrl;
+    private final int films;
+    private final int users;
+    // Накопленные веса операций: операция выбирается по случайному числу из [0, последний вес)
+    private final Operation[] operations;
+    private final int[] weights;
+
+    ApiLoadGenerator(String baseUrl, int films, int users, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.films = films;
+        this.users = users;
+        this.operations = mix.keySet().toArray(Operation[]::new);
+        this.weights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += mix.get(operations[i]);
+            weights[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("В смеси запросов нет ни одной операции");
+        }
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Некорректная доля в смеси запросов: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Доля операции не может быть отрицательной: " + part);
+            }
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        return weights;
+    }
+
+    // Каждое соединение обслуживает свой виртуальный поток с частотой rate / connections.
+    // Потоки сдвинуты друг относительно друга, чтобы запросы шли равномерно, а не пачками
+    Result run(int rate, int connections, Duration duration) throws Exception {
+        Result result = new Result(duration);
+        long interval = TimeUnit.SECONDS.toNanos(connections) / rate;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+            long startedAt = System.nanoTime();
+            long deadline = startedAt + duration.toNanos();
+            List<Future<?>> futures = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                long first = startedAt + interval * i / connections;
+                futures.add(clients.submit(() -> client(http, first, interval, deadline, result)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return result;
+    }
+
+    private Void client(HttpClient http, long first, long interval, long deadline, Result result) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long scheduled = first; scheduled < deadline; scheduled += interval) {
+            long delay = scheduled - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = next(random);
+            HttpRequest request = request(operation, random);
+            long sentAt = System.nanoTime();
+            try {
+                int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status != 200) {
+                    result.error(operation, System.nanoTime() - scheduled);
+                    continue;
+                }
+            } catch (IOException e) {
+                // Сюда попадает и HttpTimeoutException
+                if (result.error(operation, System.nanoTime() - scheduled) == 1) {
+                    System.out.println("Первая ошибка запроса: " + e);
+                }
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            long receivedAt = System.nanoTime();
+            result.record(operation, receivedAt - scheduled, receivedAt - sentAt);
+        }
+        return null;
+    }
+
+    private Operation next(ThreadLocalRandom random) {
+        int value = random.nextInt(weights[weights.length - 1]);
+        int i = 0;
+        while (value >= weights[i]) {
+            i++;
+        }
+        return operations[i];
+    }
+
+    // Лайк ставится или снимается с равной вероятностью, чтобы число лайков не росло за время теста
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        int filmId = random.nextInt(films) + 1;
+        int userId = random.nextInt(users) + 1;
+        HttpRequest.Builder builder = switch (operation) {
+            case FILMS -> HttpRequest.newBuilder(uri("/films?after=" + random.nextInt(films) + "&limit=20"));
+            case POPULAR -> HttpRequest.newBuilder(uri("/films/popular?count=10"));
+            case LIKE -> {
+                HttpRequest.Builder like = HttpRequest.newBuilder(uri("/films/" + filmId + "/like/" + userId));
+                yield random.nextBoolean()
+                        ? like.PUT(HttpRequest.BodyPublishers.noBody())
+                        : like.DELETE();
+            }
+            case FRIENDS -> HttpRequest.newBuilder(uri("/users/" + userId + "/friends"));
+            case COMMON -> HttpRequest.newBuilder(uri("/users/" + userId + "/friends/common/"
+                    + (random.nextInt(users) + 1)));
+        };
+        return builder.timeout(Duration.ofSeconds(60)).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    static final class Result {
+        private final Duration duration;
+        private final Map<Operation, Histogram> responseTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, Histogram> serviceTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, Histogram> errorTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+        Result(Duration duration) {
+            this.duration = duration;
+            for (Operation operation : Operation.values()) {
+                responseTimes.put(operation, new ConcurrentHistogram(MAX_LATENCY, PRECISION));
+                serviceTimes.put(operation, new ConcurrentHistogram(MAX_LATENCY, PRECISION));
+                errorTimes.put(operation, new ConcurrentHistogram(MAX_LATENCY, PRECISION));
+                errors.put(operation, new AtomicLong());
+            }
+        }
+
+        void record(Operation operation, long responseTime, long serviceTime) {
+            responseTimes.get(operation).recordValue(Math.min(responseTime, MAX_LATENCY));
+            serviceTimes.get(operation).recordValue(Math.min(serviceTime, MAX_LATENCY));
+        }
+
+        long error(Operation operation, long responseTime) {
+            errorTimes.get(operation).recordValue(Math.min(responseTime, MAX_LATENCY));
+            return errors.get(operation).incrementAndGet();
+        }
+
+        Histogram total() {
+            Histogram total = new Histogram(MAX_LATENCY, PRECISION);
+            responseTimes.values().forEach(total::add);
+            return total;
+        }
+
+        void print(PrintStream out) {
+            out.printf("%-8s %10s %9s %9s %9s %10s %9s %9s %8s %9s%n", "", "req/s", "p50, ms", "p99, ms",
+                    "p99.9, ms", "max, ms", "svc p50", "svc p99", "errors", "err p99");
+            long allErrors = 0;
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = responseTimes.get(operation);
+                long operationErrors = errors.get(operation).get();
+                allErrors += operationErrors;
+                if (histogram.getTotalCount() + operationErrors > 0) {
+                    print(out, operation.name().toLowerCase(Locale.ROOT), histogram,
+                            serviceTimes.get(operation), errorTimes.get(operation), operationErrors);
+                }
+            }
+            Histogram service = new Histogram(MAX_LATENCY, PRECISION);
+            serviceTimes.values().forEach(service::add);
+            Histogram failed = new Histogram(MAX_LATENCY, PRECISION);
+            errorTimes.values().forEach(failed::add);
+            print(out, "total", total(), service, failed, allErrors);
+        }
+
+        private void print(PrintStream out, String name, Histogram response, Histogram service, Histogram failed,
+                           long errors) {
+            out.printf("%-8s %10.0f %9.2f %9.2f %9.2f %10.2f %9.2f %9.2f %8d %9.2f%n", name,
+                    response.getTotalCount() * 1e9 / duration.toNanos(),
+                    response.getValueAtPercentile(50) / 1e6, response.getValueAtPercentile(99) / 1e6,
+                    response.getValueAtPercentile(99.9) / 1e6, response.getMaxValue() / 1e6,
+                    service.getValueAtPercentile(50) / 1e6, service.getValueAtPercentile(99) / 1e6, errors,
+                    failed.getValueAtPercentile(99) / 1e6);
+        }
+    }
+}
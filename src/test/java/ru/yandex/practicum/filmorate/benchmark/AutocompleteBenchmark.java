@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutocompleteBenchmark {
+    private static final int FILMS = 200_000;
+    private static final String LETTERS = "абвгдежзиклмнопрстуфхцчшэюя";
+
+    // Короткие префиксы отвечают из списков популярных в узлах, длинные - обходом поддерева
+    @Param({"б", "бра", "брат с"})
+    private String prefix;
+
+    private InMemoryFilmStorage filmStorage;
+
+    @Setup
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        Random random = new Random(42);
+        List<Film> films = new ArrayList<>(FILMS);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName(i % 100 == 0 ? "Брат " + word(random) : word(random) + " " + word(random));
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            int likes = random.nextInt(50);
+            for (int user = 1; user <= likes; user++) {
+                film.addLike(user);
+            }
+            films.add(film);
+        }
+        filmStorage.createAll(films);
+    }
+
+    @Benchmark
+    public List<Film> autocomplete() {
+        return filmStorage.autocomplete(prefix, 10);
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 3 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Общие тестовые данные бенчмарков: фильмы, пользователи и случайные лайки с фиксированным зерном,
+// чтобы результаты разных запусков были сравнимы
+final class BenchmarkData {
+    static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    static Film film(int i) {
+        Film film = new Film();
+        film.setName("Film " + i);
+        film.setDescription("Description of film " + i);
+        film.setReleaseDate(LocalDate.of(1950 + i % 70, 1 + i % 12, 1 + i % 28));
+        film.setDuration(90 + i % 60);
+        return film;
+    }
+
+    static User user(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@example.com");
+        user.setLogin("user" + i);
+        user.setName("User " + i);
+        user.setBirthday(LocalDate.of(1970 + i % 40, 1 + i % 12, 1 + i % 28));
+        return user;
+    }
+
+    static List<Film> createFilms(FilmStorage filmStorage, int count) {
+        List<Film> films = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            films.add(film(i));
+        }
+        return filmStorage.createAll(films);
+    }
+
+    static List<User> createUsers(UserStorage userStorage, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(i));
+        }
+        return userStorage.createAll(users);
+    }
+
+    // Каждый пользователь лайкает likesPerUser случайных фильмов
+    static void like(FilmStorage filmStorage, int films, int users, int likesPerUser) {
+        Random random = new Random(SEED);
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                filmStorage.addLike(random.nextInt(films) + 1, userId);
+            }
+        }
+    }
+}
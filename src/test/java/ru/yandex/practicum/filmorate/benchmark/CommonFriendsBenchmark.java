@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.CacheProperties;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+import ru.yandex.practicum.filmorate.service.ServiceCaches;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonFriendsBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int friends;
+
+    private UserStorage userStorage;
+    private UserService userService;
+    private UserService cachedUserService;
+    private Integer userId;
+    private Integer otherUserId;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        CacheProperties noCache = new CacheProperties();
+        noCache.setCommonFriendsSize(0);
+        userService = new UserService(userStorage, new ResourceVersions(), new ServiceCaches(noCache));
+        cachedUserService = new UserService(userStorage, new ResourceVersions(),
+                new ServiceCaches(new CacheProperties()));
+        User user = userStorage.create(createUser("user"));
+        User otherUser = userStorage.create(createUser("other"));
+        userId = user.getId();
+        otherUserId = otherUser.getId();
+
+        // Половина друзей второго пользователя совпадает с друзьями первого
+        for (int i = 0; i < friends * 3 / 2; i++) {
+            User friend = userStorage.create(createUser("friend" + i));
+            if (i < friends) {
+                user.addFriend(friend.getId());
+            }
+            if (i >= friends / 2) {
+                otherUser.addFriend(friend.getId());
+            }
+        }
+    }
+
+    @Benchmark
+    public List<User> intersection() {
+        return userService.getCommonFriends(userId, otherUserId);
+    }
+
+    @Benchmark
+    public List<User> cachedIntersection() {
+        return cachedUserService.getCommonFriends(userId, otherUserId);
+    }
+
+    @Benchmark
+    public List<User> streamFilter() {
+        User user = userService.getById(userId);
+        User otherUser = userService.getById(otherUserId);
+        // Прежняя реализация: копии обоих множеств, фильтрация через contains и поиск каждого друга
+        Set<Integer> otherFriends = new HashSet<>(otherUser.getFriends());
+        return new HashSet<>(user.getFriends()).stream()
+                .filter(otherFriends::contains)
+                .map(userService::getById)
+                .collect(Collectors.toList());
+    }
+
+    private static User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
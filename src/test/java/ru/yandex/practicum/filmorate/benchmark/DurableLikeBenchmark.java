@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.PersistenceManager;
+import ru.yandex.practicum.filmorate.storage.persistence.PersistenceProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DurableLikeBenchmark {
+    private static final int FILMS = 1000;
+
+    @Param({"false", "true"})
+    private boolean durable;
+
+    private InMemoryFilmStorage filmStorage;
+    private PersistenceManager persistenceManager;
+    private Path directory;
+    private int userId;
+
+    @Setup
+    public void setUp() throws IOException {
+        filmStorage = new InMemoryFilmStorage();
+        if (durable) {
+            directory = Files.createTempDirectory("filmorate-wal");
+            PersistenceProperties properties = new PersistenceProperties();
+            properties.setDirectory(directory.toString());
+            properties.setSnapshotIntervalMs(0);
+            properties.setSnapshotOnShutdown(false);
+            persistenceManager = new PersistenceManager(filmStorage, new InMemoryUserStorage(),
+                    JsonMapper.builder().findAndAddModules().build(), properties);
+            persistenceManager.start();
+        }
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(120);
+            filmStorage.create(film);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (persistenceManager != null) {
+            persistenceManager.stop();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void addLike() {
+        userId++;
+        filmStorage.addLike(userId % FILMS + 1, userId);
+    }
+}
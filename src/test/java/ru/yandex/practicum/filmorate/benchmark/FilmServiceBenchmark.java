@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.CacheProperties;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+import ru.yandex.practicum.filmorate.service.ServiceCaches;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmServiceBenchmark {
+    private static final int LIKES_PER_USER = 10;
+    // Пользователи без засеянных лайков: иначе removeLike снимал бы исходный лайк и данные
+    // постепенно менялись от итерации к итерации
+    private static final int FREE_USERS = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    private int films;
+
+    private int users;
+    private FilmService filmService;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        filmService = new FilmService(filmStorage, userStorage, new ResourceVersions(),
+                new ServiceCaches(new CacheProperties()));
+        users = Math.max(films / 10, 100);
+        BenchmarkData.createFilms(filmStorage, films);
+        BenchmarkData.createUsers(userStorage, users + FREE_USERS);
+        BenchmarkData.like(filmStorage, films, users, LIKES_PER_USER);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public Film getById() {
+        return filmService.getById(ThreadLocalRandom.current().nextInt(films) + 1);
+    }
+
+    // Лайк сразу снимается, чтобы число лайков не росло от итерации к итерации
+    @Benchmark
+    public void addAndRemoveLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int filmId = random.nextInt(films) + 1;
+        int userId = users + random.nextInt(FREE_USERS) + 1;
+        filmService.addLike(filmId, userId);
+        filmService.removeLike(filmId, userId);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON против Smile и CBOR на типичных ответах: /films/popular (10 фильмов по 1000 лайков)
+// и /users/{id}/friends (100 друзей по 100 друзей у каждого). ObjectMapper настроен как в приложении:
+// даты строками. Размер ответа печатается при подготовке
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    private static final int POPULAR = 10;
+    private static final int LIKES = 1000;
+    private static final int FRIENDS = 100;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private List<Film> popular;
+    private List<User> friends;
+    private byte[] popularBytes;
+    private byte[] friendsBytes;
+    private ObjectWriter writer;
+    private ObjectReader popularReader;
+    private ObjectReader friendsReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        ObjectMapper objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        writer = objectMapper.writer();
+        popularReader = objectMapper.readerForListOf(Film.class);
+        friendsReader = objectMapper.readerForListOf(User.class);
+
+        popular = new ArrayList<>(POPULAR);
+        for (int i = 1; i <= POPULAR; i++) {
+            Film film = BenchmarkData.film(i);
+            film.setId(i);
+            for (int userId = 1; userId <= LIKES; userId++) {
+                film.addLike(userId * 7);
+            }
+            popular.add(film);
+        }
+        friends = new ArrayList<>(FRIENDS);
+        for (int i = 1; i <= FRIENDS; i++) {
+            User user = BenchmarkData.user(i);
+            user.setId(i);
+            for (int friendId = 1; friendId <= FRIENDS; friendId++) {
+                user.addFriend(friendId * 31);
+            }
+            friends.add(user);
+        }
+        popularBytes = writer.writeValueAsBytes(popular);
+        friendsBytes = writer.writeValueAsBytes(friends);
+        System.out.println("Размер ответа, байт: популярные " + popularBytes.length
+                + ", друзья " + friendsBytes.length);
+    }
+
+    @Benchmark
+    public byte[] writePopular() throws IOException {
+        return writer.writeValueAsBytes(popular);
+    }
+
+    @Benchmark
+    public List<Film> readPopular() throws IOException {
+        return popularReader.readValue(popularBytes);
+    }
+
+    @Benchmark
+    public byte[] writeFriends() throws IOException {
+        return writer.writeValueAsBytes(friends);
+    }
+
+    @Benchmark
+    public List<User> readFriends() throws IOException {
+        return friendsReader.readValue(friendsBytes);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FriendSuggestionsBenchmark {
+    private static final int USERS = 100_000;
+    private static final int FRIENDS_OF_FRIEND = 100;
+
+    @Param({"100", "1000", "5000"})
+    private int friends;
+
+    private InMemoryUserStorage userStorage;
+    private Integer userId;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            users.add(user);
+        }
+        userStorage.createAll(users);
+
+        // Связи заполняются напрямую в моделях, чтобы не писать в лог каждую дружбу
+        Random random = new Random(42);
+        User user = users.get(0);
+        userId = user.getId();
+        for (int i = 0; i < friends; i++) {
+            User friend = users.get(1 + random.nextInt(USERS - 1));
+            user.addFriend(friend.getId());
+            friend.addFriend(user.getId());
+            for (int j = 0; j < FRIENDS_OF_FRIEND; j++) {
+                User other = users.get(1 + random.nextInt(USERS - 1));
+                friend.addFriend(other.getId());
+                other.addFriend(friend.getId());
+            }
+        }
+    }
+
+    @Benchmark
+    public List<User> recommendations() {
+        return userStorage.findFriendSuggestions(userId, 10);
+    }
+}
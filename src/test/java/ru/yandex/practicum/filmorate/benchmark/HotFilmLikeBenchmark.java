@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Лайки одного популярного фильма из нескольких потоков: все потоки меняют одно множество лайков,
+// один и тот же непрерывный диапазон пользователей (один контейнер IntSet) и одну запись в индексах.
+// Масштабирование видно при запуске с разным числом потоков:
+// ... org.openjdk.jmh.Main HotFilmLikeBenchmark -t 1, затем -t 2, -t 4
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotFilmLikeBenchmark {
+    private static final int SIZE = 1000;
+    // Общий для всех потоков диапазон сразу за засеянными пользователями: потоки чередуют id
+    // внутри него и не снимают лайки друг друга и исходные лайки
+    private static final int FIRST_USER = SIZE + 1;
+    private static final int USERS = 4096;
+
+    private final AtomicInteger threads = new AtomicInteger();
+    private InMemoryFilmStorage filmStorage;
+    private int filmId;
+
+    @Setup
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        BenchmarkData.createFilms(filmStorage, SIZE);
+        BenchmarkData.like(filmStorage, SIZE, SIZE, 10);
+        filmId = 1;
+    }
+
+    @State(Scope.Thread)
+    public static class Users {
+        private int offset;
+        private int step;
+        private int next;
+
+        @Setup
+        public void setUp(HotFilmLikeBenchmark benchmark, BenchmarkParams params) {
+            offset = benchmark.threads.getAndIncrement();
+            step = params.getThreads();
+            next = offset;
+        }
+
+        int next() {
+            next += step;
+            if (next >= USERS) {
+                next = offset;
+            }
+            return FIRST_USER + next;
+        }
+    }
+
+    @Benchmark
+    public void addAndRemoveLike(Users users) {
+        int userId = users.next();
+        filmStorage.addLike(filmId, userId);
+        filmStorage.removeLike(filmId, userId);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.CacheProperties;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+import ru.yandex.practicum.filmorate.service.ServiceCaches;
+import ru.yandex.practicum.filmorate.service.ServiceTimers;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Цена таймеров @Timed на пути лайка: тот же FilmService напрямую, через прокси с ServiceTimers,
+// как в приложении, и для сравнения через стандартный TimedAspect из Micrometer. Оба пишут в реестр Prometheus
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+    private static final int FILMS = 10_000;
+    private static final int USERS = 1000;
+
+    @Param({"none", "timers", "aspect"})
+    private String instrumentation;
+
+    private FilmService filmService;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        FilmService service = new FilmService(filmStorage, userStorage, new ResourceVersions(),
+                new ServiceCaches(new CacheProperties()));
+        BenchmarkData.createFilms(filmStorage, FILMS);
+        BenchmarkData.createUsers(userStorage, USERS);
+        BenchmarkData.like(filmStorage, FILMS, USERS, 10);
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        AspectJProxyFactory factory = new AspectJProxyFactory(service);
+        factory.setProxyTargetClass(true);
+        switch (instrumentation) {
+            case "timers" -> factory.addAdvisor(new ServiceTimers(registry));
+            case "aspect" -> factory.addAspect(new TimedAspect(registry));
+            default -> {
+                filmService = service;
+                return;
+            }
+        }
+        filmService = factory.getProxy();
+    }
+
+    @Benchmark
+    public void addAndRemoveLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int filmId = random.nextInt(FILMS) + 1;
+        int userId = random.nextInt(USERS) + 1;
+        filmService.addLike(filmId, userId);
+        filmService.removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public Film getById() {
+        return filmService.getById(ThreadLocalRandom.current().nextInt(FILMS) + 1);
+    }
+}
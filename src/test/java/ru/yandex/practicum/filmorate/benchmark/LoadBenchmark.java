@@ -0,0 +1,256 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочное сравнение пула платформенных потоков Tomcat с виртуальными потоками
+// (spring.threads.virtual.enabled). Сервер запускается отдельной JVM с обычным журналированием
+// запросов Logbook в файл и наполняется данными через API. Каждое соединение клиента обслуживает
+// свой виртуальный поток, отправляя запросы друг за другом по keep-alive. Отдельный процесс нужен
+// еще и потому, что 10 тысяч соединений в одном процессе заняли бы 20 тысяч дескрипторов файлов.
+// С -Dload.syncCommit=true сервер пишет журнал изменений в режиме sync-commit, а четверть запросов -
+// лайки, каждый из которых ждет fsync. -Djdk.tracePinnedThreads передается серверу, и закрепления
+// виртуальных потоков за несущими попадают в target/load-virtual.out.
+// mvn -Pload test -DskipTests [-Dload.connections=1000,10000] [-Dload.seconds=20] [-Dload.warmup=5]
+// [-Dload.syncCommit=true]
+public class LoadBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 1000;
+    private static final int LIKES_PER_USER = 10;
+    private static final int FRIENDS_PER_USER = 10;
+    private static final boolean SYNC_COMMIT = Boolean.getBoolean("load.syncCommit");
+
+    public static void main(String[] args) throws Exception {
+        int[] connections = Arrays.stream(System.getProperty("load.connections", "1000,5000,10000").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 5));
+        Duration measurement = Duration.ofSeconds(Long.getLong("load.seconds", 20));
+        int maxConnections = Arrays.stream(connections).max().orElse(0);
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-9s %11s %12s %9s %9s %9s %8s",
+                "threads", "connections", "req/s", "p50, ms", "p99, ms", "max, ms", "errors"));
+        for (boolean virtual : new boolean[]{false, true}) {
+            int port = freePort();
+            Process server = start(virtual, port, maxConnections);
+            try {
+                String baseUrl = "http://localhost:" + port;
+                awaitStarted(baseUrl);
+                seed(baseUrl, FILMS, USERS);
+                for (int count : connections) {
+                    run(port, count, warmup);
+                    Result result = run(port, count, measurement);
+                    report.add(String.format("%-9s %11d %12.0f %9.2f %9.2f %9.2f %8d",
+                            virtual ? "virtual" : "platform", count, result.throughput(),
+                            result.percentile(0.50), result.percentile(0.99), result.percentile(1.0),
+                            result.errors()));
+                    System.out.println(report.get(report.size() - 1));
+                }
+            } finally {
+                server.destroy();
+                server.waitFor();
+            }
+        }
+        System.out.println();
+        report.forEach(System.out::println);
+    }
+
+    private static Process start(boolean virtual, int port, int connections) throws IOException {
+        String mode = virtual ? "virtual" : "platform";
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        String tracePinned = System.getProperty("jdk.tracePinnedThreads");
+        if (tracePinned != null) {
+            command.add("-Djdk.tracePinnedThreads=" + tracePinned);
+        }
+        command.addAll(List.of(
+                "-cp", System.getProperty("java.class.path"),
+                FilmorateApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--server.tomcat.max-connections=" + (connections + 1000),
+                "--server.tomcat.accept-count=" + connections,
+                "--server.tomcat.max-keep-alive-requests=-1",
+                "--logging.file.name=target/load-" + mode + ".log",
+                "--logging.threshold.console=OFF"));
+        if (SYNC_COMMIT) {
+            // Каждый запуск начинает с пустого журнала, иначе восстановление удвоило бы данные
+            command.addAll(List.of(
+                    "--filmorate.persistence.enabled=true",
+                    "--filmorate.persistence.sync-commit=true",
+                    "--filmorate.persistence.snapshot-on-shutdown=false",
+                    "--filmorate.persistence.directory=target/load-data-" + mode + "-" + System.nanoTime()));
+        }
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/load-" + mode + ".out"))
+                .start();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    static void awaitStarted(String baseUrl) throws InterruptedException {
+        try (HttpClient http = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/films?limit=1")).build();
+            for (int attempt = 0; attempt < 120; attempt++) {
+                try {
+                    if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return;
+                    }
+                } catch (IOException e) {
+                    // Сервер еще не слушает порт
+                }
+                Thread.sleep(500);
+            }
+        }
+        throw new IllegalStateException("Сервер " + baseUrl + " не запустился");
+    }
+
+    // Наполняет пустой сервер: id фильмов и пользователей будут от 1 до filmCount и userCount
+    static void seed(String baseUrl, int filmCount, int userCount) throws IOException, InterruptedException {
+        StringBuilder films = new StringBuilder();
+        for (int i = 0; i < filmCount; i++) {
+            films.append(String.format("{\"name\":\"Film %d\",\"description\":\"Description %d\","
+                    + "\"releaseDate\":\"%d-01-01\",\"duration\":%d}%n", i, i, 1950 + i % 70, 90 + i % 60));
+        }
+        StringBuilder users = new StringBuilder();
+        for (int i = 0; i < userCount; i++) {
+            users.append(String.format("{\"email\":\"user%d@example.com\",\"login\":\"user%d\","
+                    + "\"name\":\"User %d\",\"birthday\":\"1990-01-01\"}%n", i, i, i));
+        }
+        List<String> likes = new ArrayList<>();
+        List<String> friendships = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            for (int j = 1; j <= LIKES_PER_USER; j++) {
+                likes.add(String.format("{\"filmId\":%d,\"userId\":%d,\"type\":\"ADD\"}",
+                        (i * 7 + j * 13) % filmCount + 1, i + 1));
+            }
+            for (int j = 1; j <= FRIENDS_PER_USER; j++) {
+                friendships.add(String.format("{\"userId\":%d,\"friendId\":%d,\"type\":\"ADD\"}",
+                        i + 1, (i + j * 31) % userCount + 1));
+            }
+        }
+        try (HttpClient http = HttpClient.newHttpClient()) {
+            post(http, baseUrl + "/films/import", "application/x-ndjson", films.toString());
+            post(http, baseUrl + "/users/import", "application/x-ndjson", users.toString());
+            postBatches(http, baseUrl + "/films/likes/batch", likes, FilmService.MAX_BATCH_SIZE);
+            postBatches(http, baseUrl + "/users/friends/batch", friendships, UserService.MAX_BATCH_SIZE);
+        }
+    }
+
+    private static void postBatches(HttpClient http, String url, List<String> operations, int batchSize)
+            throws IOException, InterruptedException {
+        for (int from = 0; from < operations.size(); from += batchSize) {
+            List<String> batch = operations.subList(from, Math.min(from + batchSize, operations.size()));
+            post(http, url, "application/json", "[" + String.join(",", batch) + "]");
+        }
+    }
+
+    private static void post(HttpClient http, String url, String contentType, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("POST " + url + " вернул " + status);
+        }
+    }
+
+    private static Result run(int port, int connections, Duration duration) throws Exception {
+        AtomicLong errors = new AtomicLong();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Future<long[]>> futures = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                futures.add(clients.submit(() -> client(http, port, deadline, errors)));
+            }
+            long startedAt = System.nanoTime();
+            List<long[]> latencies = new ArrayList<>(connections);
+            for (Future<long[]> future : futures) {
+                latencies.add(future.get());
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(all, all.length * 1e9 / elapsed, errors.get());
+        }
+    }
+
+    // Запросы без If-None-Match, чтобы каждый ответ сериализовался заново
+    private static long[] client(HttpClient http, int port, long deadline, AtomicLong errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1024];
+        int count = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(60));
+            String path = switch (random.nextInt(SYNC_COMMIT ? 4 : 3)) {
+                case 0 -> "/films/" + (random.nextInt(FILMS) + 1);
+                case 1 -> "/films/popular?count=10";
+                case 2 -> "/users/" + (random.nextInt(USERS) + 1) + "/friends";
+                default -> {
+                    builder.PUT(HttpRequest.BodyPublishers.noBody());
+                    yield "/films/" + (random.nextInt(FILMS) + 1) + "/like/" + (random.nextInt(USERS) + 1);
+                }
+            };
+            HttpRequest request = builder.uri(URI.create("http://localhost:" + port + path)).build();
+            long startedAt = System.nanoTime();
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+            } catch (Exception e) {
+                if (errors.getAndIncrement() == 0) {
+                    System.out.println("Первая ошибка запроса: " + e);
+                }
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - startedAt;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private record Result(long[] sortedLatencies, double throughput, long errors) {
+        double percentile(double quantile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.logging.AsyncLogAppender;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Время, которое поток запроса тратит на запись строки журнала размером с сообщение Logbook:
+// синхронный файловый appender, как было, против AsyncLogAppender поверх него. Журнал пишется
+// во временный файл с тем же шаблоном строки, что у Spring Boot. Без работы между записями
+// (work=0) асинхронный буфер переполняется и почти все события отбрасываются, поэтому основное
+// сравнение - с имитацией обработки запроса, когда фоновый поток успевает писать всё
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p ${PID:- } --- [%15.15t] "
+            + "%-40.40logger{39} : %m%n";
+
+    @Param({"sync", "async"})
+    private String mode;
+
+    @Param({"256", "1024"})
+    private int messageSize;
+
+    // Условная работа обработчика запроса между строками журнала, в единицах Blackhole.consumeCPU
+    @Param({"0", "2000"})
+    private long work;
+
+    private LoggerContext context;
+    private Logger logger;
+    private AsyncLogAppender async;
+    private Path file;
+    private String body;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        file = Files.createTempFile("filmorate-log", ".log");
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setName("FILE");
+        fileAppender.setFile(file.toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        Appender<ILoggingEvent> appender = fileAppender;
+        if (mode.equals("async")) {
+            async = new AsyncLogAppender();
+            async.setContext(context);
+            async.setName("ASYNC");
+            async.addAppender(fileAppender);
+            async.start();
+            appender = async;
+        }
+        logger = context.getLogger("org.zalando.logbook.Logbook");
+        logger.addAppender(appender);
+        body = "{\"origin\":\"local\",\"type\":\"response\",\"status\":200,\"body\":\""
+                + "x".repeat(Math.max(messageSize - 64, 0)) + "\"}";
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (async != null) {
+            System.out.println("Отброшено событий: " + async.getDroppedCount());
+        }
+        context.stop();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void log() {
+        Blackhole.consumeCPU(work);
+        logger.info(body);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.controller.Projections;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Ответ /films/popular?count=10 без параметра fields, с перечислением всех полей (те же данные,
+// но лайки пишутся из IntSet без упаковки) и с краткой сводкой id,name,likesCount. Размер ответа
+// печатается при подготовке, время включает построение проекций, как в контроллере
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final int COUNT = 10;
+
+    // Число лайков у каждого фильма из рейтинга
+    @Param({"100", "10000", "50000"})
+    private int likes;
+
+    @Param({"", "id,name,description,releaseDate,duration,likes,likesCount", "id,name,likesCount"})
+    private String fields;
+
+    private ObjectWriter writer;
+    private List<Film> popular;
+
+    @Setup
+    public void setUp() throws IOException {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        popular = new ArrayList<>(COUNT);
+        for (int i = 1; i <= COUNT; i++) {
+            Film film = BenchmarkData.film(i);
+            film.setId(i);
+            for (int userId = 1; userId <= likes; userId++) {
+                film.addLike(userId);
+            }
+            popular.add(film);
+        }
+        System.out.println("Размер ответа, байт: " + popularFilms().length);
+    }
+
+    @Benchmark
+    public byte[] popularFilms() throws IOException {
+        return writer.writeValueAsBytes(Projections.films(popular, fields.isEmpty() ? null : fields));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.PersistenceManager;
+import ru.yandex.practicum.filmorate.storage.persistence.PersistenceProperties;
+import ru.yandex.practicum.filmorate.storage.persistence.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Время перезапуска: восстановление только из журнала против снимка в JSON или бинарном формате
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecoveryBenchmark {
+    private static final int LIKES_PER_USER = 10;
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    @Param({"log", "json", "binary"})
+    private String source;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("filmorate-recovery");
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, userStorage, objectMapper, properties());
+        manager.start();
+
+        int films = users / 10;
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(120);
+            filmStorage.create(film);
+        }
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            User created = userStorage.create(user);
+            for (int like = 0; like < LIKES_PER_USER; like++) {
+                filmStorage.addLike((i + like * 7) % films + 1, created.getId());
+            }
+            if (i > 0) {
+                userStorage.addFriend(created.getId(), created.getId() - 1);
+            }
+        }
+        if (!"log".equals(source)) {
+            manager.snapshot();
+        }
+        manager.stop();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage restart() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, new InMemoryUserStorage(),
+                objectMapper, properties());
+        manager.start();
+        manager.stop();
+        return filmStorage;
+    }
+
+    private PersistenceProperties properties() {
+        PersistenceProperties properties = new PersistenceProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSnapshotIntervalMs(0);
+        properties.setSnapshotOnShutdown(false);
+        properties.setSnapshotFormat("json".equals(source) ? SnapshotFormat.JSON : SnapshotFormat.BINARY);
+        return properties;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Jackson-сериализация моделей с настройками ObjectMapper по умолчанию из Spring, как в приложении
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    // Число лайков фильма и друзей пользователя
+    @Param({"0", "100", "10000"})
+    private int links;
+
+    private Film film;
+    private User user;
+    private byte[] filmJson;
+    private byte[] userJson;
+    private ObjectWriter filmWriter;
+    private ObjectWriter userWriter;
+    private ObjectReader filmReader;
+    private ObjectReader userReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        filmWriter = objectMapper.writerFor(Film.class);
+        userWriter = objectMapper.writerFor(User.class);
+        filmReader = objectMapper.readerFor(Film.class);
+        userReader = objectMapper.readerFor(User.class);
+
+        film = BenchmarkData.film(1);
+        film.setId(1);
+        user = BenchmarkData.user(1);
+        user.setId(1);
+        for (int i = 1; i <= links; i++) {
+            film.addLike(i * 3);
+            user.addFriend(i * 3);
+        }
+        filmJson = filmWriter.writeValueAsBytes(film);
+        userJson = userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] writeFilm() throws IOException {
+        return filmWriter.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public Film readFilm() throws IOException {
+        return filmReader.readValue(filmJson);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws IOException {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User readUser() throws IOException {
+        return userReader.readValue(userJson);
+    }
+}
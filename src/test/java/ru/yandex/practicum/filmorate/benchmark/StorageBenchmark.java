@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Операции in-memory хранилищ без слоя сервисов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @Setup
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        BenchmarkData.createFilms(filmStorage, size);
+        BenchmarkData.createUsers(userStorage, size);
+        BenchmarkData.like(filmStorage, size, size, 10);
+    }
+
+    @Benchmark
+    public Optional<Film> findFilmById() {
+        return filmStorage.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Film> findFilmPage() {
+        return filmStorage.findPage(randomId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Film> findPopular() {
+        return filmStorage.findPopular(10);
+    }
+
+    @Benchmark
+    public void addAndRemoveLike() {
+        int filmId = randomId();
+        int userId = randomId();
+        filmStorage.addLike(filmId, userId);
+        filmStorage.removeLike(filmId, userId);
+    }
+
+    // Обновление переиндексирует фильм во всех индексах хранилища
+    @Benchmark
+    public Film updateFilm() {
+        int id = randomId();
+        Film film = BenchmarkData.film(id);
+        film.setId(id);
+        return filmStorage.update(film);
+    }
+
+    @Benchmark
+    public void addAndRemoveFriend() {
+        int userId = randomId();
+        int friendId = randomId();
+        if (userId != friendId) {
+            userStorage.addFriend(userId, friendId);
+            userStorage.removeFriend(userId, friendId);
+        }
+    }
+
+    @Benchmark
+    public List<User> findUsersByIds() {
+        int[] ids = new int[PAGE_SIZE];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = randomId();
+        }
+        return userStorage.findByIds(ids);
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(size) + 1;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.CacheProperties;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+import ru.yandex.practicum.filmorate.service.ServiceCaches;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({"10", "100", "1000"})
+    private int friendsPerUser;
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        CacheProperties properties = new CacheProperties();
+        if (!cached) {
+            properties.setFriendsSize(0);
+            properties.setCommonFriendsSize(0);
+        }
+        userService = new UserService(userStorage, new ResourceVersions(), new ServiceCaches(properties));
+        BenchmarkData.createUsers(userStorage, USERS);
+        // Дружба взаимная, поэтому в среднем у пользователя около friendsPerUser друзей
+        Random random = new Random(BenchmarkData.SEED);
+        for (int userId = 1; userId <= USERS; userId++) {
+            for (int i = 0; i < friendsPerUser / 2; i++) {
+                int friendId = random.nextInt(USERS) + 1;
+                if (friendId != userId) {
+                    userStorage.addFriend(userId, friendId);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends(ThreadLocalRandom.current().nextInt(USERS) + 1);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userService.getCommonFriends(random.nextInt(USERS) + 1, random.nextInt(USERS) + 1);
+    }
+}
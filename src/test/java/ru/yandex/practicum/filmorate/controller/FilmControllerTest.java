@@ -1,28 +1,52 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.ImportSummary;
+import ru.yandex.practicum.filmorate.model.OperationResult;
+import ru.yandex.practicum.filmorate.model.OperationType;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(FilmController.class)
+@Import({ResourceVersions.class, SimpleMeterRegistry.class})
 class FilmControllerTest {
 
     @Autowired
@@ -31,9 +55,18 @@ class FilmControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ResourceVersions versions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private FilmService filmService;
 
+    @MockBean
+    private ImportService importService;
+
     @MockBean
     private UserService userService;
 
@@ -41,6 +74,8 @@ class FilmControllerTest {
     private static final String FILM_DESCRIPTION = "Test Description";
     private static final LocalDate FILM_RELEASE_DATE = LocalDate.of(2000, 1, 1);
     private static final Integer FILM_DURATION = 120;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
 
     private Film createFilm(String name, String description, LocalDate releaseDate, Integer duration) {
         Film film = new Film();
@@ -75,6 +110,34 @@ class FilmControllerTest {
         verify(filmService, times(1)).create(any(Film.class));
     }
 
+    @Test
+    @DisplayName("Создание фильма в Smile должно принимать и возвращать Smile")
+    void test_Create_SmileBody_ShouldReturnSmileResponse() throws Exception {
+        // Given
+        ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        Film createdFilm = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        createdFilm.setId(1);
+
+        when(filmService.create(argThat(f -> FILM_NAME.equals(f.getName())
+                && FILM_RELEASE_DATE.equals(f.getReleaseDate())))).thenReturn(createdFilm);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/films")
+                        .contentType(SMILE)
+                        .accept(SMILE)
+                        .content(smileMapper.writeValueAsBytes(film)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+
+        // Then
+        JsonNode body = smileMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(1, body.get("id").asInt());
+        assertEquals(FILM_NAME, body.get("name").asText());
+        assertEquals(FILM_RELEASE_DATE.toString(), body.get("releaseDate").asText());
+    }
+
     @Test
     @DisplayName("Создание фильма с пустым названием должно вызывать исключение")
     void test_Create_EmptyFilmName_ShouldThrowValidationException() throws Exception {
@@ -209,6 +272,53 @@ class FilmControllerTest {
         verify(filmService, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("Получение страницы фильмов по курсору должно возвращать ссылку на следующую страницу")
+    void test_FindAll_WithCursor_ShouldReturnPageAndNextLink() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(6);
+
+        when(filmService.findPage(5, 1)).thenReturn(List.of(film));
+
+        // When & Then
+        mockMvc.perform(get("/films?after=5&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "<http://localhost/films?limit=1&after=6>; rel=\"next\""))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(6));
+
+        verify(filmService, times(1)).findPage(5, 1);
+        verify(filmService, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Потоковая выдача фильмов должна писать каждый фильм отдельной строкой NDJSON")
+    void test_StreamAll_ShouldWriteNdjson() throws Exception {
+        // Given
+        Film first = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        first.setId(1);
+        Film second = createFilm("Second", FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        second.setId(2);
+
+        when(filmService.findPage(null, FilmService.MAX_PAGE_SIZE)).thenReturn(List.of(first, second));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/films").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1, objectMapper.readValue(lines[0], Film.class).getId());
+        assertEquals("Second", objectMapper.readValue(lines[1], Film.class).getName());
+        verify(filmService, never()).findAll();
+    }
+
     @Test
     @DisplayName("Обновление фильма с валидными данными должно быть успешным")
     void test_Update_ValidFilm_ShouldUpdateFilm() throws Exception {
@@ -252,6 +362,70 @@ class FilmControllerTest {
         verify(filmService, times(1)).getById(1);
     }
 
+    @Test
+    @DisplayName("Повторный запрос фильма с актуальным ETag должен возвращать 304 без обращения к сервису")
+    void test_GetById_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(1);
+
+        when(filmService.getById(1)).thenReturn(film);
+        String etag = mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When & Then
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        verify(filmService, times(1)).getById(1);
+
+        versions.filmChanged(1);
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(filmService, times(2)).getById(1);
+    }
+
+    @Test
+    @DisplayName("ETag должен различаться для JSON, Smile, CBOR и разных fields, а ответ - содержать Vary: Accept")
+    void test_GetById_DifferentRepresentations_ShouldHaveDifferentETags() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(1);
+        when(filmService.getById(1)).thenReturn(film);
+
+        // When
+        String json = mockMvc.perform(get("/films/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString("Accept")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smile = mockMvc.perform(get("/films/1").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cbor = mockMvc.perform(get("/films/1").accept(CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String idName = mockMvc.perform(get("/films/1").param("fields", "id,name"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String nameId = mockMvc.perform(get("/films/1").param("fields", "name, id"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Then
+        assertEquals(4, Set.of(json, smile, cbor, idName).size());
+        assertEquals(idName, nameId);
+        mockMvc.perform(get("/films/1").accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE));
+        mockMvc.perform(get("/films/1").accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, smile))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     @DisplayName("Добавление лайка должно быть успешным")
     void test_AddLike_ShouldBeSuccessful() throws Exception {
@@ -298,6 +472,251 @@ class FilmControllerTest {
         verify(filmService, times(1)).getPopularFilms(10);
     }
 
+    @Test
+    @DisplayName("Популярные фильмы с параметром fields должны содержать только выбранные поля")
+    void test_GetPopularFilms_WithFields_ShouldReturnOnlySelectedFields() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(1);
+        film.addLikes(new int[]{1, 2, 3});
+
+        when(filmService.getPopularFilms(10)).thenReturn(List.of(film));
+
+        // When & Then
+        mockMvc.perform(get("/films/popular").param("fields", "id,name,likesCount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value(FILM_NAME))
+                .andExpect(jsonPath("$[0].likesCount").value(3))
+                .andExpect(jsonPath("$[0].likes").doesNotExist())
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Проекция со всеми полями должна совпадать с полным ответом")
+    void test_GetById_WithAllFields_ShouldMatchFullResponse() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(1);
+        film.addLikes(new int[]{5, 7});
+
+        when(filmService.getById(1)).thenReturn(film);
+
+        // When
+        String full = mockMvc.perform(get("/films/1"))
+                .andReturn().getResponse().getContentAsString();
+        String projected = mockMvc.perform(get("/films/1")
+                        .param("fields", "id,name,description,releaseDate,duration,likes,likesCount"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertEquals(objectMapper.readTree(full), objectMapper.readTree(projected));
+    }
+
+    @Test
+    @DisplayName("Неизвестное поле в параметре fields должно возвращать 400")
+    void test_FindAll_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(filmService.findAll()).thenReturn(Collections.emptyList());
+
+        // When & Then
+        mockMvc.perform(get("/films").param("fields", "id,rating"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Неизвестное поле в параметре fields: rating"));
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы с Accept: application/cbor должны возвращаться в CBOR")
+    void test_GetPopularFilms_AcceptCbor_ShouldReturnCbor() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(1);
+        film.addLikes(new int[]{1, 2});
+
+        when(filmService.getPopularFilms(10)).thenReturn(List.of(film));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/films/popular").accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andReturn();
+
+        // Then
+        JsonNode body = Jackson2ObjectMapperBuilder.cbor().build()
+                .readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(1, body.get(0).get("id").asInt());
+        assertEquals(2, body.get(0).get("likesCount").asInt());
+        assertEquals(2, body.get(0).get("likes").size());
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы года должны запрашиваться у сервиса с указанным годом")
+    void test_GetPopularFilms_ByYear_ShouldReturnYearLeaderboard() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(3);
+
+        when(filmService.getPopularFilms(5, 2000, null)).thenReturn(List.of(film));
+
+        // When & Then
+        mockMvc.perform(get("/films/popular").param("count", "5").param("year", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+        verify(filmService, never()).getPopularFilms(anyInt());
+    }
+
+    @Test
+    @DisplayName("Выборка по периоду релиза должна возвращать фильмы из сервиса")
+    void test_FindAll_WithReleaseRange_ShouldReturnReleasedFilms() throws Exception {
+        // Given
+        Film film = createFilm(FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(4);
+
+        when(filmService.findReleased(LocalDate.of(2000, 1, 1), LocalDate.of(2009, 12, 31), null))
+                .thenReturn(List.of(film));
+
+        // When & Then
+        mockMvc.perform(get("/films").param("releasedFrom", "2000-01-01").param("releasedTo", "2009-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(4));
+
+        verify(filmService, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Некорректная дата в параметре должна возвращать ошибку запроса")
+    void test_FindAll_WithInvalidReleaseDate_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/films").param("releasedFrom", "2000-13-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Некорректное значение параметра releasedFrom"));
+
+        verifyNoInteractions(filmService);
+    }
+
+    @Test
+    @DisplayName("Поиск фильмов должен возвращать найденные фильмы")
+    void test_Search_ShouldReturnFoundFilms() throws Exception {
+        // Given
+        Film film = createFilm("Брат", FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION);
+        film.setId(2);
+
+        when(filmService.search("брат", 5)).thenReturn(List.of(film));
+
+        // When & Then
+        mockMvc.perform(get("/films/search").param("q", "брат").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+
+        verify(filmService, times(1)).search("брат", 5);
+    }
+
+    @Test
+    @DisplayName("Поиск с пустым запросом должен вызывать исключение")
+    void test_Search_EmptyQuery_ShouldThrowValidationException() throws Exception {
+        // Given
+        when(filmService.search(null, 10))
+                .thenThrow(new ValidationException("Поисковый запрос не может быть пустым"));
+
+        // When & Then
+        mockMvc.perform(get("/films/search"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Поисковый запрос не может быть пустым"));
+
+        verify(filmService, times(1)).search(null, 10);
+    }
+
+    @Test
+    @DisplayName("Подсказки по префиксу должны возвращать только id, название и число лайков")
+    void test_Autocomplete_ShouldReturnSuggestions() throws Exception {
+        // Given
+        when(filmService.autocomplete("бр", 10)).thenReturn(List.of(
+                new FilmSuggestion(2, "Брат 2", 5),
+                new FilmSuggestion(1, "Брат", 3)));
+
+        // When & Then
+        mockMvc.perform(get("/films/autocomplete").param("prefix", "бр"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].likesCount").value(5))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+
+        verify(filmService, times(1)).autocomplete("бр", 10);
+    }
+
+    @Test
+    @DisplayName("Пакетное изменение лайков должно возвращать результат по каждой операции")
+    void test_ApplyLikes_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        when(filmService.applyLikes(anyList())).thenReturn(List.of(
+                OperationResult.ok(0),
+                OperationResult.failed(1, 404, "Фильм с id=9999 не найден")));
+
+        // When & Then
+        mockMvc.perform(post("/films/likes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\":1,\"userId\":1},{\"filmId\":9999,\"userId\":1,\"type\":\"REMOVE\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[1].error").value("Фильм с id=9999 не найден"));
+
+        verify(filmService, times(1)).applyLikes(argThat(operations -> operations.size() == 2
+                && operations.get(0).getType() == OperationType.ADD
+                && operations.get(1).getType() == OperationType.REMOVE));
+    }
+
+    @Test
+    @DisplayName("Пакет лайков больше предела должен отклоняться при чтении, не дочитывая тело")
+    void test_ApplyLikes_TooManyOperations_ShouldBeRejectedWhileReading() throws Exception {
+        // Given
+        String operations = String.join(",",
+                Collections.nCopies(FilmService.MAX_BATCH_SIZE + 1, "{\"filmId\":1,\"userId\":1}"));
+
+        // When & Then
+        // Хвост тела не разбирается: ошибка должна прийти от предела, а не от незакрытого массива
+        mockMvc.perform(post("/films/likes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + operations + ",{\"filmId\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(
+                        "Пакет не может содержать больше " + FilmService.MAX_BATCH_SIZE + " операций"));
+
+        verify(filmService, never()).applyLikes(anyList());
+    }
+
+    @Test
+    @DisplayName("Потоковый импорт фильмов должен возвращать построчный отчет в NDJSON")
+    void test_ImportFilms_ShouldStreamReport() throws Exception {
+        // Given
+        when(importService.importFilms(any(), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"line\":1,\"id\":1}\n{\"line\":2,\"error\":\"Ошибка\"}\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            return new ImportSummary();
+        });
+
+        // When & Then
+        mockMvc.perform(post("/films/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Film\"}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes("{\"line\":1,\"id\":1}\n{\"line\":2,\"error\":\"Ошибка\"}\n"
+                        .getBytes(StandardCharsets.UTF_8)));
+
+        verify(importService, times(1)).importFilms(any(), any());
+    }
+
     @Test
     @DisplayName("Очистка фильмов должна быть успешной")
     void test_Clear_ShouldBeSuccessful() throws Exception {
@@ -310,4 +729,25 @@ class FilmControllerTest {
 
         verify(filmService, times(1)).clear();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Ошибки валидации и 404 должны учитываться в счетчике filmorate.errors")
+    void test_Errors_ShouldBeCountedByType() throws Exception {
+        // Given
+        double validation = meterRegistry.counter("filmorate.errors", "type", "validation").count();
+        double notFound = meterRegistry.counter("filmorate.errors", "type", "not_found").count();
+        when(filmService.getById(404))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Фильм с id=404 не найден"));
+        when(filmService.getPopularFilms(-1))
+                .thenThrow(new ValidationException("Количество фильмов должно быть положительным"));
+
+        // When & Then
+        mockMvc.perform(get("/films/404"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/films/popular").param("count", "-1"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(validation + 1, meterRegistry.counter("filmorate.errors", "type", "validation").count());
+        assertEquals(notFound + 1, meterRegistry.counter("filmorate.errors", "type", "not_found").count());
+    }
+}
@@ -1,27 +1,45 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportSummary;
+import ru.yandex.practicum.filmorate.model.OperationResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import({ResourceVersions.class, SimpleMeterRegistry.class})
 class UserControllerTest {
 
     @Autowired
@@ -30,9 +48,18 @@ class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ResourceVersions versions;
+
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private FilmService filmService;
+
+    @MockBean
+    private ImportService importService;
+
     private static final String USER_EMAIL = "test@example.com";
     private static final String USER_LOGIN = "testuser";
     private static final String USER_NAME = "Test User";
@@ -84,6 +111,24 @@ class UserControllerTest {
         verify(userService, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("Получение страницы пользователей по курсору должно возвращать ссылку на следующую страницу")
+    void test_FindAll_WithCursor_ShouldReturnPageAndNextLink() throws Exception {
+        // Given
+        User user = createUser(USER_EMAIL, USER_LOGIN, USER_NAME, USER_BIRTHDAY);
+        user.setId(3);
+
+        when(userService.findPage(null, 1)).thenReturn(List.of(user));
+
+        // When & Then
+        mockMvc.perform(get("/users?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "<http://localhost/users?limit=1&after=3>; rel=\"next\""))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+        verify(userService, times(1)).findPage(null, 1);
+    }
+
     @Test
     @DisplayName("Создание пользователя с валидными данными должно быть успешным")
     void test_Create_ValidUserData_ShouldCreateUser() throws Exception {
@@ -372,6 +417,76 @@ class UserControllerTest {
         verify(userService, times(1)).getFriends(1);
     }
 
+    @Test
+    @DisplayName("Список друзей с параметром fields должен выдавать число друзей вместо их ID")
+    void test_GetFriends_WithFields_ShouldReturnFriendsCount() throws Exception {
+        // Given
+        User friend = createUser("friend@example.com", "friend", "Friend User", USER_BIRTHDAY);
+        friend.setId(2);
+        friend.addFriends(new int[]{1, 3});
+
+        when(userService.getFriends(1)).thenReturn(List.of(friend));
+
+        // When & Then
+        mockMvc.perform(get("/users/1/friends").param("fields", "id,login,friendsCount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].login").value("friend"))
+                .andExpect(jsonPath("$[0].friendsCount").value(2))
+                .andExpect(jsonPath("$[0].friends").doesNotExist())
+                .andExpect(jsonPath("$[0].email").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Список друзей с Accept: application/x-jackson-smile должен возвращаться в Smile")
+    void test_GetFriends_AcceptSmile_ShouldReturnSmile() throws Exception {
+        // Given
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        User friend = createUser("friend@example.com", "friend", "Friend User", USER_BIRTHDAY);
+        friend.setId(2);
+        friend.addFriends(new int[]{1, 3});
+
+        when(userService.getFriends(1)).thenReturn(List.of(friend));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/users/1/friends")
+                        .param("fields", "id,login,friendsCount")
+                        .accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn();
+
+        // Then
+        JsonNode body = Jackson2ObjectMapperBuilder.smile().build()
+                .readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(2, body.get(0).get("id").asInt());
+        assertEquals("friend", body.get(0).get("login").asText());
+        assertEquals(2, body.get(0).get("friendsCount").asInt());
+        assertNull(body.get(0).get("friends"));
+    }
+
+    @Test
+    @DisplayName("Список друзей должен перезапрашиваться у сервиса только после изменения его версии")
+    void test_GetFriends_WithMatchingETag_ShouldReturnNotModifiedUntilChanged() throws Exception {
+        // Given
+        when(userService.getFriends(1)).thenReturn(List.of());
+        String etag = mockMvc.perform(get("/users/1/friends"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When & Then
+        mockMvc.perform(get("/users/1/friends").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/users/2/friends").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        versions.friendsChanged(1);
+        mockMvc.perform(get("/users/1/friends").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(userService, times(2)).getFriends(1);
+        verify(userService, never()).getFriends(2);
+    }
+
     @Test
     @DisplayName("Получение общих друзей должно возвращать список")
     void test_GetCommonFriends_ShouldReturnCommonFriendsList() throws Exception {
@@ -393,6 +508,134 @@ class UserControllerTest {
         verify(userService, times(1)).getCommonFriends(1, 2);
     }
 
+    @Test
+    @DisplayName("Рекомендации друзей должны возвращаться в порядке, заданном сервисом")
+    void test_GetRecommendations_ShouldReturnRankedUsers() throws Exception {
+        // Given
+        User first = createUser("first@example.com", "first", "First", USER_BIRTHDAY);
+        first.setId(5);
+        User second = createUser("second@example.com", "second", "Second", USER_BIRTHDAY);
+        second.setId(3);
+
+        when(userService.getRecommendations(1, 2)).thenReturn(List.of(first, second));
+
+        // When & Then
+        mockMvc.perform(get("/users/1/recommendations").param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(5))
+                .andExpect(jsonPath("$[1].id").value(3));
+
+        verify(userService, times(1)).getRecommendations(1, 2);
+    }
+
+    @Test
+    @DisplayName("Понравившиеся пользователю фильмы должны возвращаться списком")
+    void test_GetLikedFilms_ShouldReturnFilmsLikedByUser() throws Exception {
+        // Given
+        Film film = new Film();
+        film.setId(4);
+        film.setName("Liked");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.addLike(1);
+
+        when(filmService.getLikedFilms(1)).thenReturn(List.of(film));
+
+        // When & Then
+        mockMvc.perform(get("/users/1/likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[0].likes[0]").value(1));
+
+        verify(filmService, times(1)).getLikedFilms(1);
+    }
+
+    @Test
+    @DisplayName("Рекомендованные фильмы должны возвращаться в порядке, заданном сервисом")
+    void test_GetRecommendedFilms_ShouldReturnRankedFilms() throws Exception {
+        // Given
+        Film film = new Film();
+        film.setId(7);
+        film.setName("Recommended");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+
+        when(filmService.getRecommendedFilms(1, 10)).thenReturn(List.of(film));
+
+        // When & Then
+        mockMvc.perform(get("/users/1/films/recommended"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].name").value("Recommended"));
+
+        verify(filmService, times(1)).getRecommendedFilms(1, 10);
+    }
+
+    @Test
+    @DisplayName("Пакетное изменение дружбы должно возвращать результат по каждой операции")
+    void test_ApplyFriendships_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        when(userService.applyFriendships(anyList())).thenReturn(List.of(
+                OperationResult.ok(0),
+                OperationResult.failed(1, 400, "Нельзя добавить себя в друзья")));
+
+        // When & Then
+        mockMvc.perform(post("/users/friends/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"userId\":1,\"friendId\":2},{\"userId\":3,\"friendId\":3}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].error").value("Нельзя добавить себя в друзья"));
+
+        verify(userService, times(1)).applyFriendships(anyList());
+    }
+
+    @Test
+    @DisplayName("Пакет дружбы больше предела должен отклоняться при чтении, не дочитывая тело")
+    void test_ApplyFriendships_TooManyOperations_ShouldBeRejectedWhileReading() throws Exception {
+        // Given
+        String operations = String.join(",",
+                Collections.nCopies(UserService.MAX_BATCH_SIZE + 1, "{\"userId\":1,\"friendId\":2}"));
+
+        // When & Then
+        mockMvc.perform(post("/users/friends/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + operations + ",{\"userId\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(
+                        "Пакет не может содержать больше " + UserService.MAX_BATCH_SIZE + " операций"));
+
+        verify(userService, never()).applyFriendships(anyList());
+    }
+
+    @Test
+    @DisplayName("Потоковый импорт пользователей должен возвращать построчный отчет в NDJSON")
+    void test_ImportUsers_ShouldStreamReport() throws Exception {
+        // Given
+        when(importService.importUsers(any(), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"line\":1,\"id\":1}\n{\"line\":2,\"error\":\"Ошибка\"}\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            return new ImportSummary();
+        });
+
+        // When & Then
+        mockMvc.perform(post("/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"login\":\"user\"}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes("{\"line\":1,\"id\":1}\n{\"line\":2,\"error\":\"Ошибка\"}\n"
+                        .getBytes(StandardCharsets.UTF_8)));
+
+        verify(importService, times(1)).importUsers(any(), any());
+    }
+
     @Test
     @DisplayName("Очистка пользователей должна быть успешной")
     void test_Clear_ShouldBeSuccessful() throws Exception {
@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogAppenderTest {
+
+    private LoggerContext context;
+    private Logger logger;
+    private RecordingAppender recording;
+    private AsyncLogAppender async;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        recording = new RecordingAppender();
+        recording.setContext(context);
+        recording.start();
+        logger = context.getLogger("test");
+        logger.setAdditive(false);
+        async = new AsyncLogAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(4);
+        async.addAppender(recording);
+    }
+
+    // Тесты до запуска могут поменять настройки буфера
+    private void startAsync() {
+        async.start();
+        logger.addAppender(async);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recording.release.countDown();
+        context.stop();
+    }
+
+    @Test
+    @DisplayName("При заполненном буфере события должны отбрасываться без блокировки и учитываться")
+    void test_Append_WhenQueueIsFull_ShouldDropAndCount() throws Exception {
+        // Given
+        startAsync();
+        recording.blocked = true;
+        logger.info("first");
+        assertTrue(recording.entered.await(5, TimeUnit.SECONDS));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            logger.info("event {}", i);
+        }
+
+        // Then
+        assertEquals(4, async.getQueuedCount());
+        assertEquals(6, async.getDroppedCount());
+
+        recording.release.countDown();
+        async.stop();
+        assertEquals(List.of("first", "Буфер журнала был заполнен, пропущено событий: 6",
+                "event 0", "event 1", "event 2", "event 3"), recording.messages);
+    }
+
+    @Test
+    @DisplayName("Остановка должна дописывать события из буфера с аргументами на момент вызова")
+    void test_Stop_ShouldFlushQueuedEvents() {
+        // Given
+        startAsync();
+        StringBuilder argument = new StringBuilder("before");
+
+        // When
+        logger.info("value {}", argument);
+        argument.replace(0, argument.length(), "after");
+        async.stop();
+
+        // Then
+        assertEquals(List.of("value before"), recording.messages);
+        assertEquals(0, async.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Когда в буфере мало места, INFO должны отбрасываться, а WARN - попадать в журнал")
+    void test_Append_PastDiscardingThreshold_ShouldDropInfoAndKeepWarn() throws Exception {
+        // Given
+        async.setDiscardingThreshold(2);
+        startAsync();
+        recording.blocked = true;
+        logger.info("first");
+        assertTrue(recording.entered.await(5, TimeUnit.SECONDS));
+
+        // When
+        logger.info("info 1");
+        logger.info("info 2");
+        logger.info("info 3");
+        logger.info("info 4");
+        logger.warn("warn 1");
+
+        // Then
+        assertEquals(4, async.getQueuedCount());
+        assertEquals(1, async.getDroppedCount());
+
+        recording.release.countDown();
+        async.stop();
+        assertEquals(List.of("first", "Буфер журнала был заполнен, пропущено событий: 1",
+                "info 1", "info 2", "info 3", "warn 1"), recording.messages);
+    }
+
+    @Test
+    @DisplayName("При полностью заполненном буфере WARN и ERROR должны отбрасываться без блокировки")
+    void test_Append_WarnWhenQueueIsFull_ShouldDropWithoutBlocking() throws Exception {
+        // Given
+        startAsync();
+        recording.blocked = true;
+        logger.info("first");
+        assertTrue(recording.entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            logger.warn("warn {}", i);
+        }
+
+        // When
+        Thread writer = new Thread(() -> {
+            logger.warn("dropped warn");
+            logger.error("dropped error");
+        });
+        writer.start();
+        writer.join(5000);
+        boolean finished = !writer.isAlive();
+        recording.release.countDown();
+        async.stop();
+
+        // Then
+        assertTrue(finished);
+        assertEquals(2, async.getDroppedCount());
+        assertEquals(List.of("first", "Буфер журнала был заполнен, пропущено событий: 2",
+                "warn 0", "warn 1", "warn 2", "warn 3"), recording.messages);
+    }
+
+    private static class RecordingAppender extends AppenderBase<ILoggingEvent> {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocked;
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (blocked) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messages.add(event.getFormattedMessage());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSetTest {
+
+    @Test
+    @DisplayName("Множество должно хранить значения без повторов и отдавать их по возрастанию")
+    void test_AddRemove_ShouldKeepSortedUniqueValues() {
+        // Given
+        IntSet set = new IntSet();
+
+        // When
+        assertTrue(set.add(70_000));
+        assertTrue(set.add(3));
+        assertTrue(set.add(-5));
+        assertFalse(set.add(3));
+        assertTrue(set.remove(70_000));
+        assertFalse(set.remove(70_000));
+
+        // Then
+        assertEquals(2, set.size());
+        assertEquals(List.of(-5, 3), List.copyOf(set));
+        assertArrayEquals(new int[]{-5, 3}, set.toIntArray());
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(70_000));
+    }
+
+    @Test
+    @DisplayName("Плотный контейнер должен переключаться на битовую карту без потери значений")
+    void test_ContainerSwitch_ShouldPreserveValues() {
+        // Given
+        IntSet set = new IntSet();
+        Set<Integer> expected = new TreeSet<>();
+
+        // When
+        for (int value = 0; value < 10_000; value += 2) {
+            set.add(value);
+            expected.add(value);
+        }
+        for (int value = 0; value < 6_000; value += 2) {
+            set.remove(value);
+            expected.remove(value);
+        }
+
+        // Then
+        assertEquals(expected.size(), set.size());
+        assertEquals(List.copyOf(expected), List.copyOf(set));
+        assertEquals(expected, set);
+    }
+
+    @Test
+    @DisplayName("Пересечение должно находить общие значения для любых типов контейнеров")
+    void test_Intersect_ShouldReturnCommonValuesInOrder() {
+        // Given
+        IntSet dense = new IntSet();
+        IntSet sparse = new IntSet();
+        IntSet other = new IntSet();
+        for (int value = 0; value < 20_000; value++) {
+            dense.add(value);
+        }
+        for (int value = 0; value < 200_000; value += 1_000) {
+            sparse.add(value);
+            other.add(value + (value % 2_000));
+        }
+
+        // When & Then
+        assertArrayEquals(new int[]{0, 1_000, 2_000, 3_000, 4_000, 5_000, 6_000, 7_000, 8_000, 9_000,
+                10_000, 11_000, 12_000, 13_000, 14_000, 15_000, 16_000, 17_000, 18_000, 19_000},
+                dense.intersect(sparse));
+        assertArrayEquals(sparse.intersect(dense), dense.intersect(sparse));
+        assertEquals(100, sparse.intersect(other).length);
+        assertArrayEquals(new int[0], new IntSet().intersect(dense));
+    }
+
+    @Test
+    @DisplayName("Очистка во время одновременных добавлений не должна оставлять размер, расходящийся с содержимым")
+    void test_Clear_ConcurrentWithAdd_ShouldKeepSizeConsistent() throws Exception {
+        // Given
+        IntSet set = new IntSet();
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+
+        // When
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * 100_000;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int value = first; value < first + 100_000; value++) {
+                        set.add(value);
+                        if (value % 3 == 0) {
+                            set.remove(value);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    set.clear();
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        int[] values = set.toIntArray();
+        assertEquals(values.length, set.size());
+        for (int value : values) {
+            assertTrue(set.contains(value));
+            assertNotEquals(0, value % 3);
+        }
+        set.clear();
+        assertEquals(0, set.size());
+        assertTrue(set.add(1));
+        assertEquals(List.of(1), List.copyOf(set));
+    }
+
+    @Test
+    @DisplayName("Одновременные изменения соседних значений одного контейнера не должны терять изменений")
+    void test_AddRemove_ConcurrentInOneChunk_ShouldKeepAllChanges() throws Exception {
+        // Given
+        IntSet set = new IntSet();
+        int threads = 4;
+        int range = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        for (int value = first; value < range; value += threads) {
+                            assertTrue(set.add(value));
+                            assertTrue(set.remove(value));
+                        }
+                    }
+                    for (int value = first; value < range; value += threads) {
+                        if (value % 2 == 0) {
+                            set.add(value);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        List<Integer> expected = new ArrayList<>();
+        for (int value = 0; value < range; value += 2) {
+            expected.add(value);
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected, List.copyOf(set));
+    }
+}
@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CacheStatistics;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.OperationResult;
+import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmServiceTest {
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private ServiceCaches caches;
+    private FilmService filmService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        caches = new ServiceCaches(new CacheProperties());
+        filmService = new FilmService(filmStorage, userStorage, new ResourceVersions(), caches);
+    }
+
+    private Film film(int i) {
+        Film film = new Film();
+        film.setName("Film " + i);
+        film.setDescription("Description " + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private List<Film> createFilms(int count) {
+        List<Film> films = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            films.add(film(i));
+        }
+        return filmStorage.createAll(films);
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userStorage.create(user);
+    }
+
+    private CacheStatistics statistics(String name) {
+        return caches.statistics().stream()
+                .filter(statistics -> statistics.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Название длиннее колонки базы должно отклоняться в любом хранилище")
+    void test_Create_NameLongerThanColumn_ShouldThrowValidationException() {
+        // Given
+        Film longest = film(1);
+        longest.setName("ф".repeat(FilmService.MAX_NAME_LENGTH));
+        Film tooLong = film(2);
+        tooLong.setName("ф".repeat(FilmService.MAX_NAME_LENGTH + 1));
+
+        // When / Then
+        assertEquals(longest.getName(), filmService.create(longest).getName());
+        assertThrows(ValidationException.class, () -> filmService.create(tooLong));
+    }
+
+    @Test
+    @DisplayName("Число популярных фильмов должно ограничиваться размером страницы")
+    void test_GetPopularFilms_HugeCount_ShouldBeClampedToMaxPageSize() {
+        // Given
+        createFilms(FilmService.MAX_PAGE_SIZE + 1);
+
+        // When
+        List<Film> popular = filmService.getPopularFilms(Integer.MAX_VALUE);
+        List<Film> popularOfYear = filmService.getPopularFilms(Integer.MAX_VALUE, 2000, null);
+
+        // Then
+        assertEquals(FilmService.MAX_PAGE_SIZE, popular.size());
+        assertEquals(FilmService.MAX_PAGE_SIZE, popularOfYear.size());
+    }
+
+    @Test
+    @DisplayName("Рекомендации фильмов должны кэшироваться до нового лайка самого пользователя")
+    void test_GetRecommendedFilms_ShouldBeCachedUntilOwnLike() {
+        // Given
+        List<Film> films = createFilms(2);
+        int first = films.get(0).getId();
+        int second = films.get(1).getId();
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        filmService.addLike(first, alice.getId());
+        filmService.addLike(first, bob.getId());
+        filmService.addLike(second, bob.getId());
+
+        // When
+        List<Film> recommended = filmService.getRecommendedFilms(alice.getId(), Integer.MAX_VALUE);
+        List<Film> cached = filmService.getRecommendedFilms(alice.getId(), Integer.MAX_VALUE);
+        filmService.addLike(second, alice.getId());
+        List<Film> afterLike = filmService.getRecommendedFilms(alice.getId(), Integer.MAX_VALUE);
+
+        // Then
+        assertEquals(List.of(second), recommended.stream().map(Film::getId).toList());
+        assertSame(recommended, cached);
+        assertTrue(afterLike.isEmpty());
+        assertEquals(1, statistics("recommendations").getHits());
+        assertEquals(2, statistics("recommendations").getMisses());
+    }
+
+    private LikeOperation like(Integer filmId, Integer userId, OperationType type) {
+        LikeOperation operation = new LikeOperation();
+        operation.setFilmId(filmId);
+        operation.setUserId(userId);
+        operation.setType(type);
+        return operation;
+    }
+
+    @Test
+    @DisplayName("Пакет лайков должен применять корректные операции и возвращать ошибку для каждой некорректной")
+    void test_ApplyLikes_PartialFailure_ShouldApplyOnlyValidOperations() {
+        // Given
+        List<Film> films = createFilms(2);
+        int first = films.get(0).getId();
+        int second = films.get(1).getId();
+        User alice = createUser("alice");
+        filmService.addLike(second, alice.getId());
+        List<LikeOperation> operations = Arrays.asList(
+                like(first, alice.getId(), OperationType.ADD),
+                null,
+                like(first, null, OperationType.ADD),
+                like(999, alice.getId(), OperationType.ADD),
+                like(first, 999, OperationType.ADD),
+                like(second, alice.getId(), OperationType.REMOVE));
+
+        // When
+        List<OperationResult> results = filmService.applyLikes(operations);
+
+        // Then
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), results.stream().map(OperationResult::getIndex).toList());
+        assertEquals(List.of(200, 400, 400, 404, 404, 200), results.stream().map(OperationResult::getStatus).toList());
+        assertEquals("Фильм с id=999 не найден", results.get(3).getError());
+        assertEquals("Пользователь с id=999 не найден", results.get(4).getError());
+        assertArrayEquals(new int[]{alice.getId()}, filmService.getById(first).likeIds());
+        assertEquals(0, filmService.getById(second).likeIds().length);
+    }
+
+    @Test
+    @DisplayName("Пакет лайков больше предела должен отклоняться целиком")
+    void test_ApplyLikes_TooManyOperations_ShouldBeRejected() {
+        // Given
+        int filmId = createFilms(1).get(0).getId();
+        int userId = createUser("alice").getId();
+        List<LikeOperation> operations = Collections.nCopies(FilmService.MAX_BATCH_SIZE + 1,
+                like(filmId, userId, OperationType.ADD));
+
+        // When / Then
+        assertThrows(ValidationException.class, () -> filmService.applyLikes(operations));
+        assertEquals(0, filmService.getById(filmId).likeIds().length);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.ImportSummary;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportServiceTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private ImportService importService;
+    private ImportSummary summary;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        ResourceVersions versions = new ResourceVersions();
+        ServiceCaches caches = new ServiceCaches(new CacheProperties());
+        importService = new ImportService(new FilmService(filmStorage, userStorage, versions, caches),
+                new UserService(userStorage, versions, caches), filmStorage, userStorage, versions, objectMapper);
+    }
+
+    private String film(int i) {
+        return "{\"name\":\"Film " + i + "\",\"description\":\"Description\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":100}";
+    }
+
+    private List<ImportResult> importFilms(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary = importService.importFilms(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        List<ImportResult> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, ImportResult.class));
+        }
+        return results;
+    }
+
+    @Test
+    @DisplayName("Ошибочные строки не должны мешать импорту корректных, а отчет - указывать их номера")
+    void test_ImportFilms_PartialFailure_ShouldImportValidLines() throws IOException {
+        // Given
+        String body = film(1) + "\n"
+                + "{\"name\":\"\",\"description\":\"D\",\"releaseDate\":\"2000-01-01\",\"duration\":100}\n"
+                + "\n"
+                + film(2) + "\r\n";
+
+        // When
+        List<ImportResult> results = importFilms(body);
+
+        // Then
+        assertEquals(2, summary.getImported());
+        assertEquals(1, summary.getFailed());
+        assertEquals(List.of(1, 2, 4), results.stream().map(ImportResult::getLine).toList());
+        assertNotNull(results.get(1).getError());
+        assertEquals(2, filmStorage.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Некорректный JSON и строка null должны попадать в отчет как ошибки, не прерывая импорт")
+    void test_ImportFilms_MalformedAndNullLines_ShouldBeReportedAsFailed() throws IOException {
+        // Given
+        String body = "{\"name\":\n" + "null\n" + film(1);
+
+        // When
+        List<ImportResult> results = importFilms(body);
+
+        // Then
+        assertEquals(1, summary.getImported());
+        assertEquals(2, summary.getFailed());
+        assertTrue(results.get(0).getError().startsWith("Некорректный JSON"));
+        assertEquals("Ожидался JSON-объект, получен null", results.get(1).getError());
+        assertEquals(3, results.get(2).getLine());
+        assertNotNull(results.get(2).getId());
+    }
+
+    @Test
+    @DisplayName("Строка длиннее предела должна отклоняться, а следующие за ней - импортироваться")
+    void test_ImportFilms_TooLongLine_ShouldBeReportedAsFailed() throws IOException {
+        // Given
+        String body = "x".repeat(ImportService.MAX_LINE_LENGTH * 3) + "\n" + film(1) + "\n";
+
+        // When
+        List<ImportResult> results = importFilms(body);
+
+        // Then
+        assertEquals(1, summary.getImported());
+        assertEquals(1, summary.getFailed());
+        assertEquals("Строка длиннее " + ImportService.MAX_LINE_LENGTH + " символов", results.get(0).getError());
+        assertEquals(2, results.get(1).getLine());
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.CacheStatistics;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceCachesTest {
+
+    private InMemoryUserStorage userStorage;
+    private ServiceCaches caches;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = new InMemoryUserStorage();
+        caches = new ServiceCaches(new CacheProperties());
+        userService = new UserService(userStorage, new ResourceVersions(), caches);
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userService.create(user);
+    }
+
+    private CacheStatistics statistics(String name) {
+        return caches.statistics().stream()
+                .filter(statistics -> statistics.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Список друзей должен браться из кэша до изменения дружбы или профиля друга")
+    void test_GetFriends_ShouldBeCachedUntilFriendshipOrFriendProfileChanges() {
+        // Given
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        User carol = createUser("carol");
+        userService.addFriend(alice.getId(), bob.getId());
+
+        // When
+        List<User> first = userService.getFriends(alice.getId());
+        List<User> second = userService.getFriends(alice.getId());
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, statistics("friends").getHits());
+
+        userService.addFriend(alice.getId(), carol.getId());
+        assertEquals(List.of("bob", "carol"),
+                userService.getFriends(alice.getId()).stream().map(User::getLogin).toList());
+
+        User renamed = new User();
+        renamed.setId(bob.getId());
+        renamed.setEmail("bob@example.com");
+        renamed.setLogin("bobby");
+        renamed.setBirthday(LocalDate.of(1990, 1, 1));
+        renamed.addFriends(bob.friendIds());
+        userService.update(renamed);
+        assertEquals(List.of("bobby", "carol"),
+                userService.getFriends(alice.getId()).stream().map(User::getLogin).toList());
+        assertEquals(1, statistics("friends").getHits());
+        assertEquals(3, statistics("friends").getMisses());
+    }
+
+    @Test
+    @DisplayName("Список друзей должен пересчитываться, когда меняется дружба одного из друзей")
+    void test_GetFriends_ShouldBeInvalidatedWhenFriendsFriendshipChanges() {
+        // Given
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        User carol = createUser("carol");
+        userService.addFriend(alice.getId(), bob.getId());
+        userService.getFriends(alice.getId());
+
+        // When
+        userService.addFriend(bob.getId(), carol.getId());
+        List<User> afterAdd = userService.getFriends(alice.getId());
+        userService.removeFriend(bob.getId(), carol.getId());
+        List<User> afterRemove = userService.getFriends(alice.getId());
+
+        // Then
+        assertEquals(3, statistics("friends").getMisses());
+        assertEquals(0, statistics("friends").getHits());
+        assertNotSame(afterAdd, afterRemove);
+        assertFalse(afterRemove.get(0).getFriends().contains(carol.getId()));
+    }
+
+    @Test
+    @DisplayName("Общие друзья должны кэшироваться для пары в любом порядке и сбрасываться при изменении дружбы")
+    void test_GetCommonFriends_ShouldBeCachedPerPairAndInvalidatedOnRemoveFriend() {
+        // Given
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        User carol = createUser("carol");
+        userService.addFriend(alice.getId(), carol.getId());
+        userService.addFriend(bob.getId(), carol.getId());
+
+        // When
+        assertEquals(1, userService.getCommonFriends(alice.getId(), bob.getId()).size());
+        assertEquals(1, userService.getCommonFriends(bob.getId(), alice.getId()).size());
+        userService.removeFriend(carol.getId(), bob.getId());
+
+        // Then
+        assertTrue(userService.getCommonFriends(alice.getId(), bob.getId()).isEmpty());
+        CacheStatistics statistics = statistics("commonFriends");
+        assertEquals(1, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(1.0 / 3, statistics.getHitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Статистика кэшей должна публиковаться в метриках с тегом кэша")
+    void test_BindTo_ShouldExposeCacheStatisticsAsMeters() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        caches.bindTo(registry);
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        userService.addFriend(alice.getId(), bob.getId());
+
+        // When
+        userService.getFriends(alice.getId());
+        userService.getFriends(alice.getId());
+
+        // Then
+        assertEquals(1, registry.get("filmorate.cache.hits").tag("cache", "friends").functionCounter().count());
+        assertEquals(1, registry.get("filmorate.cache.misses").tag("cache", "friends").functionCounter().count());
+        assertEquals(1, registry.get("filmorate.cache.size").tag("cache", "friends").gauge().value());
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Без @AutoConfigureObservability Spring Boot в тестах подменяет реестры метрик пустыми,
+// и /actuator/prometheus не было бы
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class ServiceTimersTest {
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Timer timer(String method, String exception) {
+        return registry.find("filmorate.service")
+                .tag("class", FilmService.class.getName())
+                .tag("method", method)
+                .tag("exception", exception)
+                .timer();
+    }
+
+    // Порядок меток в выводе Prometheus алфавитный, но после последней может стоять запятая
+    private static boolean exposed(String scrape, String exception) {
+        return scrape.lines().anyMatch(line -> line.startsWith("filmorate_service_seconds_count{")
+                && line.contains("class=\"" + FilmService.class.getName() + "\"")
+                && line.contains("exception=\"" + exception + "\"")
+                && line.contains("method=\"getById\""));
+    }
+
+    @Test
+    @DisplayName("Таймеры сервисов должны учитывать успешные и неуспешные вызовы и попадать в Prometheus")
+    void test_ServiceTimers_ShouldRecordBothOutcomesAndExposeThem() throws Exception {
+        // Given
+        Film film = new Film();
+        film.setName("Timed");
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        Film created = filmService.create(film);
+
+        // When
+        filmService.getById(created.getId());
+        assertThrows(ResponseStatusException.class, () -> filmService.getById(Integer.MAX_VALUE));
+
+        // Then
+        Timer success = timer("getById", "none");
+        Timer failure = timer("getById", ResponseStatusException.class.getSimpleName());
+        assertNotNull(success);
+        assertNotNull(failure);
+        assertTrue(success.count() >= 1);
+        assertEquals(1, failure.count());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(exposed(scrape, "none"));
+        assertTrue(exposed(scrape, "ResponseStatusException"));
+    }
+}
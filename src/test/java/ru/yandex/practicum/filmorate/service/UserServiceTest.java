@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
+import ru.yandex.practicum.filmorate.model.OperationResult;
+import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceTest {
+
+    private ResourceVersions versions;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        versions = new ResourceVersions();
+        userService = new UserService(new InMemoryUserStorage(), versions, new ServiceCaches(new CacheProperties()));
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userService.create(user);
+    }
+
+    @Test
+    @DisplayName("Email, логин и имя длиннее колонок базы должны отклоняться в любом хранилище")
+    void test_Create_FieldsLongerThanColumns_ShouldThrowValidationException() {
+        // Given
+        String tooLong = "a".repeat(UserService.MAX_FIELD_LENGTH + 1);
+        User longEmail = new User();
+        longEmail.setEmail(tooLong + "@example.com");
+        longEmail.setLogin("alice");
+        longEmail.setBirthday(LocalDate.of(1990, 1, 1));
+        User longLogin = new User();
+        longLogin.setEmail("bob@example.com");
+        longLogin.setLogin(tooLong);
+        longLogin.setBirthday(LocalDate.of(1990, 1, 1));
+        User longName = new User();
+        longName.setEmail("carol@example.com");
+        longName.setLogin("carol");
+        longName.setName(tooLong);
+        longName.setBirthday(LocalDate.of(1990, 1, 1));
+
+        // When / Then
+        assertThrows(ValidationException.class, () -> userService.create(longEmail));
+        assertThrows(ValidationException.class, () -> userService.create(longLogin));
+        assertThrows(ValidationException.class, () -> userService.create(longName));
+    }
+
+    @Test
+    @DisplayName("ETag списка друзей должен меняться, когда друг заводит или удаляет своего друга")
+    void test_FriendsTag_ShouldChangeWhenFriendsFriendshipChanges() {
+        // Given
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        User carol = createUser("carol");
+        userService.addFriend(alice.getId(), bob.getId());
+        String before = versions.friendsTag(alice.getId());
+
+        // When
+        userService.addFriend(bob.getId(), carol.getId());
+        String afterAdd = versions.friendsTag(alice.getId());
+        userService.removeFriend(carol.getId(), bob.getId());
+        String afterRemove = versions.friendsTag(alice.getId());
+
+        // Then
+        assertNotEquals(before, afterAdd);
+        assertNotEquals(afterAdd, afterRemove);
+    }
+
+    @Test
+    @DisplayName("Огромное число рекомендаций друзей должно ограничиваться размером страницы")
+    void test_GetRecommendations_HugeCount_ShouldBeClamped() {
+        // Given
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        User carol = createUser("carol");
+        userService.addFriend(alice.getId(), bob.getId());
+        userService.addFriend(bob.getId(), carol.getId());
+
+        // When
+        List<User> recommendations = userService.getRecommendations(alice.getId(), Integer.MAX_VALUE);
+
+        // Then
+        assertEquals(List.of(carol.getId()), recommendations.stream().map(User::getId).toList());
+    }
+
+    private FriendshipOperation friendship(Integer userId, Integer friendId, OperationType type) {
+        FriendshipOperation operation = new FriendshipOperation();
+        operation.setUserId(userId);
+        operation.setFriendId(friendId);
+        operation.setType(type);
+        return operation;
+    }
+
+    @Test
+    @DisplayName("Пакет изменений дружбы должен применять корректные операции и возвращать ошибку для некорректных")
+    void test_ApplyFriendships_PartialFailure_ShouldApplyOnlyValidOperations() {
+        // Given
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        User carol = createUser("carol");
+        userService.addFriend(alice.getId(), carol.getId());
+        List<FriendshipOperation> operations = Arrays.asList(
+                friendship(alice.getId(), bob.getId(), OperationType.ADD),
+                null,
+                friendship(alice.getId(), alice.getId(), OperationType.ADD),
+                friendship(alice.getId(), 999, OperationType.ADD),
+                friendship(alice.getId(), carol.getId(), OperationType.REMOVE));
+
+        // When
+        List<OperationResult> results = userService.applyFriendships(operations);
+
+        // Then
+        assertEquals(List.of(200, 400, 400, 404, 200), results.stream().map(OperationResult::getStatus).toList());
+        assertEquals("Нельзя добавить себя в друзья", results.get(2).getError());
+        assertEquals("Пользователь с id=999 не найден", results.get(3).getError());
+        assertEquals(List.of(bob.getId()), userService.getFriends(alice.getId()).stream().map(User::getId).toList());
+        assertEquals(List.of(alice.getId()), userService.getFriends(bob.getId()).stream().map(User::getId).toList());
+        assertTrue(userService.getFriends(carol.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Пакет изменений дружбы больше предела должен отклоняться целиком")
+    void test_ApplyFriendships_TooManyOperations_ShouldBeRejected() {
+        // Given
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        List<FriendshipOperation> operations = Collections.nCopies(UserService.MAX_BATCH_SIZE + 1,
+                friendship(alice.getId(), bob.getId(), OperationType.ADD));
+
+        // When / Then
+        assertThrows(ValidationException.class, () -> userService.applyFriendships(operations));
+        assertTrue(userService.getFriends(alice.getId()).isEmpty());
+    }
+}
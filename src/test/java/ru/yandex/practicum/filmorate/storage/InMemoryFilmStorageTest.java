@@ -0,0 +1,310 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryFilmStorageTest {
+
+    private static final int LIKES_PER_THREAD = 20_000;
+
+    private InMemoryFilmStorage filmStorage;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+    }
+
+    private Film createFilm(String name) {
+        return createFilm(name, LocalDate.of(2000, 1, 1));
+    }
+
+    private Film createFilm(String name, LocalDate releaseDate) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(releaseDate);
+        film.setDuration(120);
+        return filmStorage.create(film);
+    }
+
+    @Test
+    @DisplayName("Если журнал отказал, изменение не должно попадать и в память")
+    void test_Mutations_WhenJournalFails_ShouldNotChangeMemory() {
+        // Given
+        Film film = createFilm("Original");
+        filmStorage.setMutationLog(mutation -> {
+            throw new IllegalStateException("Журнал изменений недоступен");
+        });
+        Film renamed = new Film();
+        renamed.setId(film.getId());
+        renamed.setName("Renamed");
+        renamed.setReleaseDate(film.getReleaseDate());
+
+        // When
+        assertThrows(IllegalStateException.class, () -> filmStorage.addLike(film.getId(), 1));
+        assertThrows(IllegalStateException.class, () -> filmStorage.update(renamed));
+        assertThrows(IllegalStateException.class, () -> filmStorage.clear());
+
+        // Then
+        Film stored = filmStorage.findById(film.getId()).orElseThrow();
+        assertEquals("Original", stored.getName());
+        assertEquals(0, stored.getLikesCount());
+        assertTrue(filmStorage.findLikedBy(1).isEmpty());
+        assertEquals(List.of("Original"), filmStorage.search("Renamed Original", 10).stream()
+                .map(Film::getName).toList());
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы должны быть упорядочены по числу лайков, затем по ID")
+    void test_FindPopular_ShouldOrderByLikesThenId() {
+        // Given
+        Film first = createFilm("First");
+        Film second = createFilm("Second");
+        Film third = createFilm("Third");
+
+        // When
+        filmStorage.addLike(second.getId(), 1);
+        filmStorage.addLike(second.getId(), 2);
+        filmStorage.addLike(third.getId(), 1);
+        filmStorage.addLike(first.getId(), 1);
+        filmStorage.removeLike(first.getId(), 1);
+
+        // Then
+        List<Film> popular = filmStorage.findPopular(3);
+        assertEquals(List.of(second.getId(), third.getId(), first.getId()),
+                popular.stream().map(Film::getId).toList());
+        assertEquals(1, filmStorage.findPopular(1).size());
+    }
+
+    @Test
+    @DisplayName("Выборка по датам и рейтинги года и десятилетия должны учитывать лайки и смену даты релиза")
+    void test_FindByRelease_ShouldUseDateRangeAndPeriodLeaderboards() {
+        // Given
+        Film older = createFilm("Older", LocalDate.of(1994, 6, 1));
+        Film early = createFilm("Early", LocalDate.of(1999, 3, 1));
+        Film late = createFilm("Late", LocalDate.of(1999, 12, 31));
+        Film next = createFilm("Next", LocalDate.of(2000, 1, 1));
+        filmStorage.addLike(older.getId(), 1);
+        filmStorage.addLike(late.getId(), 1);
+        filmStorage.addLike(late.getId(), 2);
+
+        // When & Then
+        assertEquals(List.of(early.getId(), late.getId()), ids(filmStorage.findReleased(
+                LocalDate.of(1999, 1, 1), LocalDate.of(1999, 12, 31), 10)));
+        assertEquals(List.of(late.getId(), next.getId()), ids(filmStorage.findReleased(
+                LocalDate.of(1999, 12, 31), null, 10)));
+        assertEquals(List.of(older.getId()), ids(filmStorage.findReleased(null, LocalDate.of(1999, 1, 1), 1)));
+        assertEquals(List.of(late.getId(), early.getId()), ids(filmStorage.findPopularByYear(1999, 10)));
+        assertEquals(List.of(late.getId(), older.getId(), early.getId()),
+                ids(filmStorage.findPopularByDecade(1990, 10)));
+
+        filmStorage.addLike(early.getId(), 1);
+        filmStorage.addLike(early.getId(), 2);
+        filmStorage.addLike(early.getId(), 3);
+        assertEquals(List.of(early.getId(), late.getId()), ids(filmStorage.findPopularByYear(1999, 10)));
+
+        early.setReleaseDate(LocalDate.of(2001, 5, 5));
+        filmStorage.update(early);
+        assertEquals(List.of(late.getId()), ids(filmStorage.findPopularByYear(1999, 10)));
+        assertEquals(List.of(early.getId(), next.getId()), ids(filmStorage.findPopularByDecade(2000, 10)));
+        assertEquals(List.of(late.getId(), next.getId(), early.getId()), ids(filmStorage.findReleased(
+                LocalDate.of(1999, 6, 1), null, 10)));
+    }
+
+    @Test
+    @DisplayName("Рекомендации должны ранжировать фильмы по совместным лайкам и не включать уже понравившиеся")
+    void test_FindRecommended_ShouldRankByCoOccurrence() {
+        // Given
+        Film seen = createFilm("Seen");
+        Film strong = createFilm("Strong");
+        Film weak = createFilm("Weak");
+        Film unrelated = createFilm("Unrelated");
+        filmStorage.addLike(seen.getId(), 1);
+        filmStorage.addLike(seen.getId(), 2);
+        filmStorage.addLike(seen.getId(), 3);
+        filmStorage.addLike(strong.getId(), 2);
+        filmStorage.addLike(strong.getId(), 3);
+        filmStorage.addLike(weak.getId(), 3);
+        filmStorage.addLike(unrelated.getId(), 4);
+
+        // When
+        List<Integer> recommended = filmStorage.findRecommended(1, 10).stream().map(Film::getId).toList();
+
+        // Then
+        assertEquals(List.of(strong.getId(), weak.getId()), recommended);
+
+        filmStorage.addLike(strong.getId(), 1);
+        assertEquals(List.of(weak.getId()), filmStorage.findRecommended(1, 10).stream().map(Film::getId).toList());
+
+        Film renamed = new Film();
+        renamed.setId(weak.getId());
+        renamed.setName("Weak");
+        filmStorage.update(renamed);
+        assertTrue(filmStorage.findRecommended(1, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Обратный индекс должен отдавать понравившиеся пользователю фильмы после лайков, обновлений и очистки")
+    void test_FindLikedBy_ShouldFollowLikeChanges() {
+        // Given
+        Film first = createFilm("First");
+        Film second = createFilm("Second");
+        Film third = createFilm("Third");
+
+        // When
+        filmStorage.addLike(third.getId(), 1);
+        filmStorage.addLike(first.getId(), 1);
+        filmStorage.addLike(second.getId(), 1);
+        filmStorage.addLike(second.getId(), 2);
+        filmStorage.removeLike(second.getId(), 1);
+        Film replaced = new Film();
+        replaced.setId(third.getId());
+        replaced.setName("Third");
+        filmStorage.update(replaced);
+
+        // Then
+        assertEquals(List.of(first.getId()), filmStorage.findLikedBy(1).stream().map(Film::getId).toList());
+        assertEquals(List.of(second.getId()), filmStorage.findLikedBy(2).stream().map(Film::getId).toList());
+        assertTrue(filmStorage.findLikedBy(3).isEmpty());
+
+        filmStorage.clear();
+        assertTrue(filmStorage.findLikedBy(2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Поиск должен находить фильмы по словам на кириллице и ставить совпадения в названии выше")
+    void test_Search_ShouldRankNameMatchesFirst() {
+        // Given
+        Film brother = createFilm("Брат");
+        Film sequel = createFilm("Брат 2");
+        sequel.setDescription("Продолжение истории Данилы Багрова");
+        filmStorage.update(sequel);
+        Film other = createFilm("Сёстры");
+        other.setDescription("Фильм о сестрах; упоминается брат");
+        filmStorage.update(other);
+
+        // When
+        List<Integer> found = filmStorage.search("БРАТ", 10).stream().map(Film::getId).toList();
+
+        // Then
+        assertEquals(3, found.size());
+        assertEquals(brother.getId(), found.get(0));
+        assertEquals(other.getId(), found.get(2));
+        assertEquals(List.of(sequel.getId()), filmStorage.search("данилы", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(other.getId()), filmStorage.search("сестры", 10).stream().map(Film::getId).toList());
+
+        sequel.setDescription(null);
+        filmStorage.update(sequel);
+        assertTrue(filmStorage.search("данилы", 10).isEmpty());
+        assertTrue(filmStorage.search("!!!", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Подсказки по префиксу должны ставить популярные названия первыми и следить за лайками и переименованиями")
+    void test_Autocomplete_ShouldOrderByLikesAndFollowChanges() {
+        // Given
+        Film brother = createFilm("Брат");
+        Film sequel = createFilm("Брат 2");
+        Film bridge = createFilm("Бриллиантовая рука");
+        createFilm("Ёлки");
+        filmStorage.addLike(sequel.getId(), 1);
+        filmStorage.addLike(sequel.getId(), 2);
+        filmStorage.addLike(bridge.getId(), 1);
+
+        // When & Then
+        assertEquals(List.of(sequel.getId(), bridge.getId(), brother.getId()), ids(filmStorage.autocomplete("Бр", 10)));
+        assertEquals(List.of(sequel.getId(), brother.getId()), ids(filmStorage.autocomplete("брат", 10)));
+        assertEquals(1, filmStorage.autocomplete("елк", 10).size());
+
+        filmStorage.addLike(brother.getId(), 1);
+        filmStorage.addLike(brother.getId(), 2);
+        filmStorage.addLike(brother.getId(), 3);
+        assertEquals(List.of(brother.getId(), sequel.getId()), ids(filmStorage.autocomplete("бр", 2)));
+
+        filmStorage.removeLike(brother.getId(), 1);
+        filmStorage.removeLike(brother.getId(), 2);
+        filmStorage.removeLike(brother.getId(), 3);
+        assertEquals(List.of(sequel.getId(), bridge.getId(), brother.getId()), ids(filmStorage.autocomplete("бр", 10)));
+
+        Film renamed = new Film();
+        renamed.setId(sequel.getId());
+        renamed.setName("Сестры");
+        filmStorage.update(renamed);
+        assertEquals(List.of(bridge.getId(), brother.getId()), ids(filmStorage.autocomplete("бр", 10)));
+        assertEquals(List.of(sequel.getId()), ids(filmStorage.autocomplete("сест", 10)));
+        assertTrue(filmStorage.autocomplete("брат 2", 10).isEmpty());
+    }
+
+    private List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    // Пропускная способность при конкуренции за один фильм измеряет HotFilmLikeBenchmark
+    @Test
+    @DisplayName("Одновременные лайки и их отмена на одном фильме не должны теряться и расходиться с индексами")
+    void test_AddAndRemoveLike_ConcurrentOnOneFilm_ShouldKeepCountAndIndexesConsistent() throws Exception {
+        // Given
+        int threads = 4;
+        Film hotFilm = createFilm("Blockbuster");
+        Film otherFilm = createFilm("Other");
+        filmStorage.addLike(otherFilm.getId(), 1);
+
+        // When
+        likeConcurrently(hotFilm.getId(), threads);
+
+        // Then
+        int expectedLikes = threads * LIKES_PER_THREAD / 2;
+        Film stored = filmStorage.findById(hotFilm.getId()).orElseThrow();
+        assertEquals(expectedLikes, stored.getLikesCount());
+        assertEquals(expectedLikes, stored.getLikes().size());
+        for (int userId = 1; userId <= threads * LIKES_PER_THREAD; userId++) {
+            boolean kept = userId % 2 == 1;
+            assertEquals(kept, stored.getLikes().contains(userId), "Лайк пользователя " + userId);
+            assertEquals(kept, filmStorage.findLikedBy(userId).stream()
+                    .anyMatch(film -> film.getId().equals(hotFilm.getId())), "Индекс лайков пользователя " + userId);
+        }
+        assertEquals(List.of(hotFilm.getId(), otherFilm.getId()),
+                filmStorage.findPopular(2).stream().map(Film::getId).toList());
+    }
+
+    // Каждый поток ставит лайки своим пользователям и снимает лайки четных, пока другие потоки
+    // меняют тот же фильм
+    private void likeConcurrently(Integer filmId, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int firstUserId = t * LIKES_PER_THREAD + 1;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int userId = firstUserId; userId < firstUserId + LIKES_PER_THREAD; userId++) {
+                        filmStorage.addLike(filmId, userId);
+                        if (userId % 2 == 0) {
+                            filmStorage.removeLike(filmId, userId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
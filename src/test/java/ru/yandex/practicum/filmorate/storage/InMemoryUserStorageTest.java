@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserStorageTest {
+
+    private InMemoryUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = new InMemoryUserStorage();
+    }
+
+    private List<Integer> createUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            users.add(user);
+        }
+        return userStorage.createAll(users).stream().map(User::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Отсутствующий пользователь должен давать 404, как в сервисе, чтобы его учла метрика ошибок")
+    void test_MissingUser_ShouldThrowNotFoundStatus() {
+        // Given
+        Integer existing = createUsers(1).get(0);
+        User missing = new User();
+        missing.setId(existing + 1);
+
+        // When
+        ResponseStatusException onFriend = assertThrows(ResponseStatusException.class,
+                () -> userStorage.addFriend(existing, existing + 1));
+        ResponseStatusException onUpdate = assertThrows(ResponseStatusException.class,
+                () -> userStorage.update(missing));
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, onFriend.getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, onUpdate.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Рекомендации должны быть упорядочены по числу общих друзей и не включать уже друзей")
+    void test_FindFriendSuggestions_ShouldRankByMutualFriends() {
+        // Given
+        List<Integer> ids = createUsers(6);
+        Integer me = ids.get(0);
+        userStorage.addFriend(me, ids.get(1));
+        userStorage.addFriend(me, ids.get(2));
+        userStorage.addFriend(me, ids.get(3));
+        userStorage.addFriend(ids.get(1), ids.get(4));
+        userStorage.addFriend(ids.get(2), ids.get(4));
+        userStorage.addFriend(ids.get(3), ids.get(5));
+        userStorage.addFriend(ids.get(1), ids.get(2));
+
+        // When
+        List<Integer> suggestions = userStorage.findFriendSuggestions(me, 10).stream().map(User::getId).toList();
+
+        // Then
+        assertEquals(List.of(ids.get(4), ids.get(5)), suggestions);
+        assertEquals(List.of(ids.get(4)),
+                userStorage.findFriendSuggestions(me, 1).stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Рекомендации не должны обходить друзей друга с огромным списком друзей")
+    void test_FindFriendSuggestions_ShouldSkipHugeFriendLists() {
+        // Given
+        List<Integer> ids = createUsers(FriendSuggestions.MAX_FRIEND_LIST + 4);
+        Integer me = ids.get(0);
+        Integer friend = ids.get(1);
+        Integer celebrity = ids.get(2);
+        Integer viaFriend = ids.get(3);
+        userStorage.addFriend(me, friend);
+        userStorage.addFriend(me, celebrity);
+        userStorage.addFriend(friend, viaFriend);
+        for (Integer fan : ids.subList(3, ids.size())) {
+            userStorage.addFriend(celebrity, fan);
+        }
+
+        // When
+        List<Integer> suggestions = userStorage.findFriendSuggestions(me, 10).stream().map(User::getId).toList();
+
+        // Then
+        assertEquals(List.of(viaFriend), suggestions);
+    }
+
+    @Test
+    @DisplayName("Рекомендации для пользователя с тысячами друзей должны считаться параллельно и совпадать с порядком по общим друзьям")
+    void test_FindFriendSuggestions_ShouldHandleLargeFriendLists() {
+        // Given
+        int friends = 5_000;
+        List<Integer> ids = createUsers(friends + 101);
+        Integer me = ids.get(0);
+        List<Integer> candidates = ids.subList(friends + 1, ids.size());
+        for (int i = 1; i <= friends; i++) {
+            userStorage.addFriend(me, ids.get(i));
+            // Кандидат c индексом k дружит с каждым (k+1)-м другом, так что у первых кандидатов общих друзей больше
+            for (int k = 0; k < candidates.size(); k++) {
+                if (i % (k + 1) == 0) {
+                    userStorage.addFriend(ids.get(i), candidates.get(k));
+                }
+            }
+        }
+
+        // When
+        long startedAt = System.nanoTime();
+        List<Integer> suggestions = userStorage.findFriendSuggestions(me, 5).stream().map(User::getId).toList();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // Then
+        System.out.printf("Рекомендации для %d друзей посчитаны за %d мс%n", friends, elapsedMs);
+        assertEquals(candidates.subList(0, 5), suggestions);
+    }
+}
@@ -0,0 +1,368 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@ActiveProfiles("jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+class JdbcStorageTest {
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private LikeOperation like(Integer filmId, Integer userId, OperationType type) {
+        LikeOperation operation = new LikeOperation();
+        operation.setFilmId(filmId);
+        operation.setUserId(userId);
+        operation.setType(type);
+        return operation;
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы должны выбираться запросом с сортировкой по числу лайков, затем по ID")
+    void test_FindPopular_ShouldOrderByLikesThenId() {
+        // Given
+        List<Film> films = filmStorage.createAll(List.of(film("First"), film("Second"), film("Third")));
+        List<User> users = userStorage.createAll(List.of(user("alice"), user("bob")));
+        Integer first = films.get(0).getId();
+        Integer second = films.get(1).getId();
+        Integer third = films.get(2).getId();
+        Integer alice = users.get(0).getId();
+        Integer bob = users.get(1).getId();
+
+        // When
+        filmStorage.applyLikes(List.of(
+                like(second, alice, OperationType.ADD),
+                like(second, bob, OperationType.ADD),
+                like(first, alice, OperationType.ADD),
+                like(first, alice, OperationType.REMOVE),
+                like(first, alice, OperationType.ADD),
+                like(third, bob, OperationType.ADD),
+                like(first, alice, OperationType.REMOVE)));
+
+        // Then
+        assertEquals(List.of(second, third, first),
+                filmStorage.findPopular(3).stream().map(Film::getId).toList());
+        assertEquals(Set.of(alice, bob), filmStorage.findById(second).orElseThrow().getLikes());
+        assertEquals(1, filmStorage.findPopular(1).size());
+    }
+
+    @Test
+    @DisplayName("Счетчик лайков должен меняться только при реальном добавлении или удалении лайка")
+    void test_LikesCount_ShouldIgnoreRepeatedLikesAndResetOnUsersClear() {
+        // Given
+        List<Film> films = filmStorage.createAll(List.of(film("First"), film("Second")));
+        Integer first = films.get(0).getId();
+        Integer second = films.get(1).getId();
+        Integer alice = userStorage.create(user("alice")).getId();
+
+        // When
+        filmStorage.addLike(first, alice);
+        filmStorage.addLike(first, alice);
+        filmStorage.removeLike(second, alice);
+        filmStorage.applyLikes(List.of(like(first, alice, OperationType.ADD), like(second, alice, OperationType.ADD)));
+        filmStorage.removeLike(second, alice);
+        int[] counts = filmStorage.sampleLikeCounts(10).counts();
+        List<Integer> popular = filmStorage.findPopular(2).stream().map(Film::getId).toList();
+        userStorage.clear();
+
+        // Then
+        Arrays.sort(counts);
+        assertArrayEquals(new int[]{0, 1}, counts);
+        assertEquals(List.of(first, second), popular);
+        assertArrayEquals(new int[]{0, 0}, filmStorage.sampleLikeCounts(10).counts());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Одиночные лайки и дружба из параллельных потоков должны сохраняться все, в том числе пакетами")
+    void test_AddLikeAndFriend_Concurrent_ShouldKeepEveryChange() throws Exception {
+        // Given
+        Integer filmId = filmStorage.create(film("Hot")).getId();
+        List<User> newUsers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            newUsers.add(user("user" + i));
+        }
+        List<Integer> users = userStorage.createAll(newUsers).stream().map(User::getId).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            for (Integer userId : users) {
+                futures.add(executor.submit(() -> {
+                    filmStorage.addLike(filmId, userId);
+                    userStorage.addFriend(users.get(0), userId.equals(users.get(0)) ? users.get(1) : userId);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // Then
+            Film film = filmStorage.findById(filmId).orElseThrow();
+            assertEquals(users.size(), film.getLikesCount());
+            assertArrayEquals(new int[]{users.size()}, filmStorage.sampleLikeCounts(10).counts());
+            assertEquals(users.size() - 1, userStorage.findById(users.get(0)).orElseThrow().getFriends().size());
+        } finally {
+            executor.shutdownNow();
+            filmStorage.clear();
+            userStorage.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("Выборка по датам и популярные фильмы года и десятилетия должны фильтроваться по дате релиза")
+    void test_FindByRelease_ShouldFilterByReleaseDate() {
+        // Given
+        Film older = film("Older");
+        older.setReleaseDate(LocalDate.of(1994, 6, 1));
+        Film early = film("Early");
+        early.setReleaseDate(LocalDate.of(1999, 3, 1));
+        Film late = film("Late");
+        late.setReleaseDate(LocalDate.of(1999, 12, 31));
+        List<Film> films = filmStorage.createAll(List.of(older, early, late, film("Next")));
+        Integer alice = userStorage.create(user("alice")).getId();
+        filmStorage.addLike(late.getId(), alice);
+
+        // When & Then
+        assertEquals(List.of(early.getId(), late.getId()), filmStorage.findReleased(
+                LocalDate.of(1999, 1, 1), LocalDate.of(1999, 12, 31), 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(late.getId(), films.get(3).getId()), filmStorage.findReleased(
+                LocalDate.of(1999, 12, 31), null, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(late.getId(), early.getId()),
+                filmStorage.findPopularByYear(1999, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(late.getId(), older.getId(), early.getId()),
+                filmStorage.findPopularByDecade(1990, 10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Рекомендованные фильмы должны считаться запросом по совместным лайкам")
+    void test_FindRecommended_ShouldRankByCoOccurrence() {
+        // Given
+        List<Integer> films = filmStorage.createAll(List.of(film("Seen"), film("Strong"), film("Weak")))
+                .stream().map(Film::getId).toList();
+        List<Integer> users = userStorage.createAll(List.of(user("me"), user("a"), user("b")))
+                .stream().map(User::getId).toList();
+        filmStorage.addLike(films.get(0), users.get(0));
+        filmStorage.addLike(films.get(0), users.get(1));
+        filmStorage.addLike(films.get(0), users.get(2));
+        filmStorage.addLike(films.get(1), users.get(1));
+        filmStorage.addLike(films.get(1), users.get(2));
+        filmStorage.addLike(films.get(2), users.get(2));
+
+        // When
+        List<Integer> recommended = filmStorage.findRecommended(users.get(0), 10).stream().map(Film::getId).toList();
+
+        // Then
+        assertEquals(List.of(films.get(1), films.get(2)), recommended);
+        assertEquals(films, filmStorage.findLikedBy(users.get(2)).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Поиск должен находить фильмы по подстроке и ставить совпадения в названии выше")
+    void test_Search_ShouldRankNameMatchesFirst() {
+        // Given
+        Film other = film("Другое");
+        other.setDescription("Про ёлку");
+        List<Integer> films = filmStorage.createAll(List.of(film("Елка"), other)).stream().map(Film::getId).toList();
+
+        // When
+        List<Integer> found = filmStorage.search("ёлка", 10).stream().map(Film::getId).toList();
+
+        // Then
+        assertEquals(List.of(films.get(0)), found);
+        assertEquals(List.of(films.get(0), films.get(1)),
+                filmStorage.search("про елк", 10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Подсказки по префиксу должны выбираться запросом с сортировкой по лайкам")
+    void test_Autocomplete_ShouldOrderByLikes() {
+        // Given
+        List<Integer> films = filmStorage.createAll(List.of(film("Брат"), film("Брат 2"), film("100% Волк")))
+                .stream().map(Film::getId).toList();
+        Integer alice = userStorage.create(user("alice")).getId();
+        filmStorage.addLike(films.get(1), alice);
+
+        // When
+        List<Integer> found = filmStorage.autocomplete("бра", 10).stream().map(Film::getId).toList();
+
+        // Then
+        assertEquals(List.of(films.get(1), films.get(0)), found);
+        assertEquals(List.of(films.get(2)), filmStorage.autocomplete("100%", 10).stream().map(Film::getId).toList());
+        assertTrue(filmStorage.autocomplete("10_", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Дружба должна храниться взаимно и находиться через общих друзей")
+    void test_AddFriend_ShouldStoreBothDirections() {
+        // Given
+        List<User> users = userStorage.createAll(List.of(user("alice"), user("bob"), user("carol")));
+        Integer alice = users.get(0).getId();
+        Integer bob = users.get(1).getId();
+        Integer carol = users.get(2).getId();
+
+        // When
+        userStorage.addFriend(alice, carol);
+        userStorage.addFriend(bob, carol);
+        userStorage.addFriend(alice, bob);
+        userStorage.removeFriend(alice, bob);
+
+        // Then
+        User aliceFound = userStorage.findById(alice).orElseThrow();
+        User bobFound = userStorage.findById(bob).orElseThrow();
+        assertEquals(Set.of(carol), aliceFound.getFriends());
+        assertEquals(Set.of(alice, bob), userStorage.findById(carol).orElseThrow().getFriends());
+        assertEquals(List.of(carol), userStorage.findByIds(aliceFound.commonFriendIds(bobFound))
+                .stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Лайки и друзья, присланные при создании и обновлении, должны сохраняться, как и в памяти")
+    void test_CreateAndUpdate_ShouldStoreClientLikesAndFriends() {
+        // Given
+        List<Integer> users = userStorage.createAll(List.of(user("alice"), user("bob"), user("carol")))
+                .stream().map(User::getId).toList();
+        Film film = film("Liked");
+        film.setLikes(Set.of(users.get(0), users.get(1), -1));
+        User dave = user("dave");
+        dave.setFriends(Set.of(users.get(0), users.get(1)));
+
+        // When
+        Integer filmId = filmStorage.create(film).getId();
+        Integer daveId = userStorage.create(dave).getId();
+        Film created = filmStorage.findById(filmId).orElseThrow();
+        Film changed = film("Liked");
+        changed.setId(filmId);
+        changed.setLikes(Set.of(users.get(1), users.get(2)));
+        filmStorage.update(changed);
+        User changedDave = user("dave");
+        changedDave.setId(daveId);
+        changedDave.setFriends(Set.of(users.get(2)));
+        userStorage.update(changedDave);
+
+        // Then
+        assertEquals(Set.of(users.get(0), users.get(1)), created.getLikes());
+        assertEquals(Set.of(users.get(1), users.get(2)), filmStorage.findById(filmId).orElseThrow().getLikes());
+        assertArrayEquals(new int[]{2}, filmStorage.sampleLikeCounts(10).counts());
+        assertEquals(Set.of(users.get(2)), userStorage.findById(daveId).orElseThrow().getFriends());
+    }
+
+    @Test
+    @DisplayName("Рекомендации друзей должны считаться запросом по числу общих друзей")
+    void test_FindFriendSuggestions_ShouldRankByMutualFriends() {
+        // Given
+        List<Integer> ids = userStorage.createAll(List.of(user("me"), user("a"), user("b"), user("c"), user("d")))
+                .stream().map(User::getId).toList();
+        userStorage.addFriend(ids.get(0), ids.get(1));
+        userStorage.addFriend(ids.get(0), ids.get(2));
+        userStorage.addFriend(ids.get(1), ids.get(3));
+        userStorage.addFriend(ids.get(2), ids.get(3));
+        userStorage.addFriend(ids.get(2), ids.get(4));
+        userStorage.addFriend(ids.get(1), ids.get(2));
+
+        // When
+        List<Integer> suggestions = userStorage.findFriendSuggestions(ids.get(0), 10)
+                .stream().map(User::getId).toList();
+
+        // Then
+        assertEquals(List.of(ids.get(3), ids.get(4)), suggestions);
+    }
+
+    @Test
+    @DisplayName("Страницы должны идти по возрастанию ID и обновление должно сохранять присланные лайки")
+    void test_FindPage_ShouldReturnFilmsAfterCursor() {
+        // Given
+        List<Film> films = filmStorage.createAll(List.of(film("First"), film("Second"), film("Third")));
+        Integer alice = userStorage.create(user("alice")).getId();
+        filmStorage.addLike(films.get(1).getId(), alice);
+
+        // When
+        Film renamed = film("Renamed");
+        renamed.setId(films.get(1).getId());
+        renamed.setLikes(Set.of(alice));
+        filmStorage.update(renamed);
+        List<Film> page = filmStorage.findPage(films.get(0).getId(), 1);
+
+        // Then
+        assertEquals(1, page.size());
+        assertEquals("Renamed", page.get(0).getName());
+        assertEquals(Set.of(alice), page.get(0).getLikes());
+        assertThrows(ResponseStatusException.class, () -> {
+            Film missing = film("Missing");
+            missing.setId(-1);
+            filmStorage.update(missing);
+        });
+    }
+
+    @Test
+    @DisplayName("Счетчики для метрик должны браться у всех сущностей, а в большом хранилище - у выборки")
+    void test_SampleCounts_ShouldReturnAllOrSampledCounts() {
+        // Given
+        List<Film> films = filmStorage.createAll(List.of(film("First"), film("Second")));
+        Integer alice = userStorage.create(user("alice")).getId();
+        Integer bob = userStorage.create(user("bob")).getId();
+        userStorage.create(user("carol"));
+        filmStorage.addLike(films.get(0).getId(), alice);
+        filmStorage.addLike(films.get(0).getId(), bob);
+        userStorage.addFriend(alice, bob);
+
+        // When
+        int[] likes = filmStorage.sampleLikeCounts(10).counts();
+        int[] friends = userStorage.sampleFriendCounts(10).counts();
+        CountSample sampledLikes = filmStorage.sampleLikeCounts(1);
+        CountSample sampledFriends = userStorage.sampleFriendCounts(2);
+
+        // Then
+        Arrays.sort(likes);
+        Arrays.sort(friends);
+        assertArrayEquals(new int[]{0, 2}, likes);
+        assertArrayEquals(new int[]{0, 1, 1}, friends);
+        assertEquals(2, sampledLikes.size());
+        assertEquals(1, sampledLikes.counts().length);
+        assertEquals(3, sampledFriends.size());
+        assertTrue(sampledFriends.counts().length <= 2);
+    }
+}
@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceManagerTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @TempDir
+    private Path directory;
+
+    private PersistenceProperties properties(boolean snapshotOnShutdown) {
+        PersistenceProperties properties = new PersistenceProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSnapshotIntervalMs(0);
+        properties.setSnapshotOnShutdown(snapshotOnShutdown);
+        return properties;
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    @Test
+    @DisplayName("После перезапуска хранилища должны восстанавливаться из снимка и хвоста журнала")
+    void test_Recover_ShouldRestoreSnapshotAndLogTail() throws Exception {
+        // Given
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, userStorage, objectMapper,
+                properties(false));
+        manager.start();
+
+        Film first = filmStorage.create(film("First"));
+        Film second = filmStorage.create(film("Second"));
+        User alice = userStorage.create(user("alice"));
+        User bob = userStorage.create(user("bob"));
+        filmStorage.addLike(first.getId(), alice.getId());
+        userStorage.addFriend(alice.getId(), bob.getId());
+        manager.snapshot();
+
+        // When
+        filmStorage.addLike(second.getId(), alice.getId());
+        filmStorage.addLike(second.getId(), bob.getId());
+        filmStorage.removeLike(first.getId(), alice.getId());
+        Film renamed = film("Renamed");
+        renamed.setId(first.getId());
+        filmStorage.update(renamed);
+        userStorage.removeFriend(alice.getId(), bob.getId());
+        User carol = userStorage.create(user("carol"));
+        manager.stop();
+
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+        InMemoryUserStorage restoredUsers = new InMemoryUserStorage();
+        PersistenceManager restored = new PersistenceManager(restoredFilms, restoredUsers, objectMapper,
+                properties(true));
+        restored.start();
+
+        // Then
+        assertEquals("Renamed", restoredFilms.findById(first.getId()).orElseThrow().getName());
+        assertEquals(Set.of(alice.getId(), bob.getId()), restoredFilms.findById(second.getId()).orElseThrow().getLikes());
+        assertEquals(List.of(second.getId(), first.getId()),
+                restoredFilms.findPopular(2).stream().map(Film::getId).toList());
+        assertTrue(restoredUsers.findById(alice.getId()).orElseThrow().getFriends().isEmpty());
+        assertEquals("carol", restoredUsers.findById(carol.getId()).orElseThrow().getLogin());
+        assertEquals(carol.getId() + 1, restoredUsers.create(user("dave")).getId());
+
+        restored.stop();
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Снимок в JSON должен читаться после перехода на бинарный формат")
+    void test_Recover_ShouldReadJsonSnapshotAfterSwitchToBinary() throws Exception {
+        // Given
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceProperties jsonProperties = properties(true);
+        jsonProperties.setSnapshotFormat(SnapshotFormat.JSON);
+        PersistenceManager manager = new PersistenceManager(filmStorage, userStorage, objectMapper, jsonProperties);
+        manager.start();
+
+        Film film = film("Фильм");
+        film.setReleaseDate(null);
+        film = filmStorage.create(film);
+        User alice = userStorage.create(user("alice"));
+        User bob = userStorage.create(user("bob"));
+        filmStorage.addLike(film.getId(), bob.getId());
+        userStorage.addFriend(alice.getId(), bob.getId());
+        manager.stop();
+
+        // When
+        InMemoryFilmStorage binaryFilms = new InMemoryFilmStorage();
+        InMemoryUserStorage binaryUsers = new InMemoryUserStorage();
+        PersistenceManager binary = new PersistenceManager(binaryFilms, binaryUsers, objectMapper, properties(true));
+        binary.start();
+        binary.stop();
+
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+        InMemoryUserStorage restoredUsers = new InMemoryUserStorage();
+        new PersistenceManager(restoredFilms, restoredUsers, objectMapper, properties(false)).recover();
+
+        // Then
+        assertTrue(Files.exists(directory.resolve(SnapshotFormat.BINARY.getFileName())));
+        assertFalse(Files.exists(directory.resolve(SnapshotFormat.JSON.getFileName())));
+        Film restored = restoredFilms.findById(film.getId()).orElseThrow();
+        assertEquals("Фильм", restored.getName());
+        assertNull(restored.getReleaseDate());
+        assertEquals(Set.of(bob.getId()), restored.getLikes());
+        assertEquals(Set.of(bob.getId()), restoredUsers.findById(alice.getId()).orElseThrow().getFriends());
+        assertEquals(LocalDate.of(1990, 1, 1), restoredUsers.findById(bob.getId()).orElseThrow().getBirthday());
+    }
+
+    @Test
+    @DisplayName("Недописанная последняя запись журнала должна пропускаться, а предыдущие - восстанавливаться")
+    void test_Recover_TornTail_ShouldKeepEarlierMutations() throws Exception {
+        // Given
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, userStorage, objectMapper,
+                properties(false));
+        manager.start();
+        Film film = filmStorage.create(film("Film"));
+        User alice = userStorage.create(user("alice"));
+        filmStorage.addLike(film.getId(), alice.getId());
+        manager.stop();
+
+        // Запись оборвалась на середине при аварийной остановке
+        Path segment = WriteAheadLog.segmentPath(directory, 1);
+        Files.writeString(segment, "{\"type\":\"LIKE_REMOVE\",\"id\":" + film.getId() + ",\"oth",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // When
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+        InMemoryUserStorage restoredUsers = new InMemoryUserStorage();
+        long nextSegment = new PersistenceManager(restoredFilms, restoredUsers, objectMapper, properties(false))
+                .recover();
+
+        // Then
+        assertEquals(2, nextSegment);
+        assertEquals(Set.of(alice.getId()), restoredFilms.findById(film.getId()).orElseThrow().getLikes());
+        assertEquals("alice", restoredUsers.findById(alice.getId()).orElseThrow().getLogin());
+    }
+
+    @Test
+    @DisplayName("В режиме sync-commit изменение должно быть в файле журнала к моменту возврата из метода")
+    void test_SyncCommit_ShouldWriteMutationBeforeReturn() throws Exception {
+        // Given
+        PersistenceProperties syncProperties = properties(false);
+        syncProperties.setSyncCommit(true);
+        syncProperties.setFsyncIntervalMs(200);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, userStorage, objectMapper, syncProperties);
+        manager.start();
+
+        // When
+        Film film = filmStorage.create(film("Film"));
+        filmStorage.addLike(film.getId(), 42);
+        List<String> lines = Files.readAllLines(WriteAheadLog.segmentPath(directory, 1));
+        manager.stop();
+
+        // Then
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("LIKE_ADD"));
+    }
+
+    @Test
+    @DisplayName("При заполненной очереди журнала параллельные изменения должны дождаться места, а не потеряться")
+    void test_Append_FullQueue_ShouldKeepAllConcurrentMutations() throws Exception {
+        // Given
+        PersistenceProperties smallQueue = properties(false);
+        smallQueue.setQueueCapacity(2);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, new InMemoryUserStorage(), objectMapper,
+                smallQueue);
+        manager.start();
+        Film film = filmStorage.create(film("Film"));
+        int threads = 4;
+        int likesPerThread = 500;
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int firstUser = t * likesPerThread + 1;
+                futures.add(executor.submit(() -> {
+                    for (int userId = firstUser; userId < firstUser + likesPerThread; userId++) {
+                        filmStorage.addLike(film.getId(), userId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        manager.stop();
+
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+        PersistenceManager restored = new PersistenceManager(restoredFilms, new InMemoryUserStorage(),
+                objectMapper, properties(false));
+        restored.start();
+
+        // Then
+        assertEquals(threads * likesPerThread, restoredFilms.findById(film.getId()).orElseThrow().getLikesCount());
+        restored.stop();
+    }
+
+    @Test
+    @DisplayName("Запись о фильме должна содержать состояние на момент изменения, а не более поздние лайки")
+    void test_PutFilm_ShouldSnapshotFilmAtAppend() {
+        // Given
+        Film film = film("Film");
+        film.setId(1);
+        film.addLike(1);
+
+        // When
+        Mutation mutation = Mutation.putFilm(film);
+        film.addLike(2);
+        film.setName("Renamed");
+
+        // Then
+        assertEquals(Set.of(1), mutation.getFilm().getLikes());
+        assertEquals("Film", mutation.getFilm().getName());
+    }
+}